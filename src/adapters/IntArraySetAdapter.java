@@ -0,0 +1,44 @@
+package adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.IntArraySet;
+
+import java.io.IOException;
+
+public class IntArraySetAdapter extends TypeAdapter<IntArraySet> {
+
+    @Override
+    public void write(JsonWriter out, IntArraySet set) throws IOException {
+        if (set == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (int value : set.toArray()) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntArraySet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        IntArraySet set = new IntArraySet();
+
+        in.beginArray();
+        while (in.hasNext()) {
+            set.add(in.nextInt());
+        }
+        in.endArray();
+
+        return set;
+    }
+}
@@ -0,0 +1,88 @@
+package adapters;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.IntObjectMap;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+public class IntObjectMapAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        if (!IntObjectMap.class.isAssignableFrom(typeToken.getRawType())) {
+            return null;
+        }
+
+        Type valueType = Object.class;
+
+        if (typeToken.getType() instanceof ParameterizedType) {
+            valueType = ((ParameterizedType) typeToken.getType()).getActualTypeArguments()[0];
+        }
+
+        return (TypeAdapter<T>) new IntObjectMapAdapter<>(gson.getAdapter(TypeToken.get(valueType)));
+    }
+
+    private static class IntObjectMapAdapter<V> extends TypeAdapter<IntObjectMap<V>> {
+        private final TypeAdapter<V> valueAdapter;
+
+        IntObjectMapAdapter(TypeAdapter<V> valueAdapter) {
+            this.valueAdapter = valueAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, IntObjectMap<V> map) throws IOException {
+            if (map == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+
+            IOException[] failure = new IOException[1];
+
+            map.forEach((key, value) -> {
+                if (failure[0] == null) {
+                    try {
+                        out.name(Integer.toString(key));
+                        valueAdapter.write(out, value);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.endObject();
+        }
+
+        @Override
+        public IntObjectMap<V> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            IntObjectMap<V> map = new IntObjectMap<>();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                int key = Integer.parseInt(in.nextName());
+                map.put(key, valueAdapter.read(in));
+            }
+            in.endObject();
+
+            return map;
+        }
+    }
+}
@@ -53,4 +53,40 @@ public class KVTaskClient {
         }
         return body;
     }
+
+    /**
+     * Арендует блок из count идущих подряд id под ключом key и возвращает первый из них.
+     * Блок начинается не раньше after + 1. В отличие от put и load, ошибка здесь не проглатывается:
+     * без блока создавать задачи нельзя.
+     * Сетевая ошибка повторяется один раз: HttpClient не повторяет POST сам, если сервер уже закрыл
+     * простаивавшее соединение. Повтор безопасен, ведь лишний выданный блок только оставляет пропуск в id.
+     */
+    public long lease(String key, int count, long after) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create(uri + "/lease/" + key + "?API_TOKEN=" + apiToken + "&count=" + count
+                        + "&after=" + after))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        try {
+            HttpResponse<String> response;
+
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            }
+
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Не удалось арендовать блок id, код ответа " + response.statusCode());
+            }
+            return Long.parseLong(response.body().trim());
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось арендовать блок id", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Аренда блока id прервана", e);
+        }
+    }
 }
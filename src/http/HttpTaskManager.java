@@ -8,26 +8,34 @@ import manager.FileBackedTasksManager;
 import tasks.models.Epic;
 import tasks.models.Subtask;
 import tasks.models.Task;
+import util.IntObjectMap;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.List;
-import java.util.TreeSet;
 
 public class HttpTaskManager extends FileBackedTasksManager {
+    private static final String ID_KEY = "ids";
+
     private KVTaskClient client;
     private final Gson gson;
 
     public HttpTaskManager(URI uri) throws IOException, InterruptedException {
-        super(null);
-        client = new KVTaskClient(uri);
+        this(new KVTaskClient(uri));
+    }
+
+    /**
+     * Id выдаются блоками из общего счётчика на KVServer, так что менеджеры с одним сервером не выдают одинаковых id.
+     */
+    private HttpTaskManager(KVTaskClient client) {
+        super(null, new LeasedIdAllocator(client, ID_KEY, LeasedIdAllocator.DEFAULT_BLOCK_SIZE));
+        this.client = client;
         gson = Managers.getGson();
         load();
     }
 
     @Override
-    protected void save() {
+    protected void persist() {
         String jsonTasks = gson.toJson(normalTasksMap);
         client.put("tasks", jsonTasks);
 
@@ -44,40 +52,51 @@ public class HttpTaskManager extends FileBackedTasksManager {
         client.put("prioritizedTasks", jsonPrioritizedTasks);
     }
 
-    private void load() {
+    @Override
+    protected void load() {
         try {
             String taskFromJson = client.load("tasks");
             if (taskFromJson != null && !taskFromJson.isBlank()) {
-                normalTasksMap = gson.fromJson(taskFromJson, new TypeToken<HashMap<Integer, Task>>() {
-                }.getType());
+                normalTasksMap.putAll(gson.fromJson(taskFromJson, new TypeToken<IntObjectMap<Task>>() {
+                }.getType()));
             }
 
             String epicFromJson = client.load("epics");
             if (epicFromJson != null && !epicFromJson.isBlank()) {
-                epicsMap = gson.fromJson(taskFromJson, new TypeToken<HashMap<Integer, Epic>>() {
-                }.getType());
+                epicsMap.putAll(gson.fromJson(epicFromJson, new TypeToken<IntObjectMap<Epic>>() {
+                }.getType()));
             }
 
-            String subsFromJson = client.load("epics");
+            String subsFromJson = client.load("subtasks");
             if (subsFromJson != null && !subsFromJson.isBlank()) {
-                subtasksMap = gson.fromJson(taskFromJson, new TypeToken<HashMap<Integer, Subtask>>() {
-                }.getType());
+                subtasksMap.putAll(gson.fromJson(subsFromJson, new TypeToken<IntObjectMap<Subtask>>() {
+                }.getType()));
             }
 
+            List<Task> history = List.of();
             String historyFromJson = client.load("history");
             if (historyFromJson != null && !historyFromJson.isBlank()) {
-                List<Task> history = gson.fromJson(historyFromJson, new TypeToken<List<Task>>() {
+                history = gson.fromJson(historyFromJson, new TypeToken<List<Task>>() {
                 }.getType());
-                for (Task task : history) {
-                    historyManager.add(task);
-                }
             }
 
-            String prioritizedTasksFromJson = client.load("prioritizedTasks");
-            if (prioritizedTasksFromJson != null && !prioritizedTasksFromJson.isBlank()) {
-                tasksTreeSet = gson.fromJson(prioritizedTasksFromJson, new TypeToken<TreeSet<Task>>() {
-                }.getType());
+            epicsMap.forEachValue(this::restoreEpic);
+
+            epicsMap.forEachValue(this::indexTask);
+            subtasksMap.forEachValue(this::indexTask);
+            normalTasksMap.forEachValue(this::indexTask);
+
+            normalTasksMap.forEachValue(this::restoreTaskTime);
+            subtasksMap.forEachValue(this::restoreTaskTime);
+
+            for (Task task : history) {
+                Task storedTask = peekTask(task.getId());
+
+                if (storedTask != null) {
+                    historyManager.add(storedTask);
+                }
             }
+            restoreNextId();
         } catch (NullPointerException e) {
             System.out.println("Пока что нечего загружать");
         }
@@ -0,0 +1,51 @@
+package http;
+
+import client.KVTaskClient;
+import manager.IdAllocator;
+
+/**
+ * Выдаёт id из блоков, арендованных у KVServer. Сервер выдаёт каждый блок только один раз,
+ * поэтому несколько менеджеров с общим хранилищем создают задачи без пересечения id
+ * и обращаются к серверу только один раз на блок.
+ */
+public class LeasedIdAllocator implements IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final KVTaskClient client;
+    private final String key;
+    private final int blockSize;
+    private int next;
+    private int end;
+    private int floor;
+
+    public LeasedIdAllocator(KVTaskClient client, String key, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + blockSize);
+        }
+        this.client = client;
+        this.key = key;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized int nextId() {
+        if (next >= end) {
+            next = Math.toIntExact(client.lease(key, blockSize, floor));
+            end = next + blockSize;
+        }
+        return next++;
+    }
+
+    /**
+     * Пропускает id из текущего блока, которые уже заняты. Если занят весь блок,
+     * следующий блок будет арендован сразу после указанного id.
+     */
+    @Override
+    public synchronized void advancePast(int id) {
+        floor = Math.max(floor, id);
+
+        if (next <= id) {
+            next = Math.min(id + 1, end);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package manager;
+
+import tasks.enums.TaskType;
+import tasks.models.Task;
+import util.IntArraySet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * История просмотров для одновременной работы из многих потоков без блокировок.
+ * Каждый просмотр и каждое удаление занимают следующую ячейку журнала: одно атомарное приращение
+ * и одна запись в ячейку. Повторы не вычищаются при записи: история собирается при чтении проходом
+ * по журналу от новых записей к старым, где учитывается только последняя операция с каждой задачей.
+ * Метка удаления перечисляет удалённые задачи и помнит самый старый просмотр, видимый в журнале прямо
+ * перед её ячейкой; более старые записи читатель не смотрит: как и в {@link InMemoryHistoryManager},
+ * удаление не возвращает в историю уже вытесненные задачи.
+ * <p>
+ * Читатель видит ровно те операции, которые заняли ячейку до того, как он прочитал счётчик журнала.
+ * Ячейку, которую писатель занял, но ещё не записал, читатель не ждёт, а помечает пропущенной,
+ * и писатель повторяет операцию в следующей ячейке, поэтому чтение линеаризуемо и никогда не ждёт писателя.
+ * <p>
+ * Заполненный журнал сжимается в новый, куда переносятся только задачи, видимые в истории, так что
+ * вытеснение зависит только от вместимости, а память ограничена {@value #WINDOW_FACTOR} x capacity
+ * ячейками (не меньше {@value #MIN_WINDOW}). Сжатие без блокировки: новый журнал ставится сравнением
+ * с обменом, и все потоки, заставшие заполненный журнал, строят одинаковый результат.
+ * <p>
+ * С хранилищем задач журнал, как и {@link InMemoryHistoryManager}, помнит только id и тип задачи,
+ * а сами задачи берёт из хранилища при чтении.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    public static final int WINDOW_FACTOR = 4;
+    public static final int MIN_WINDOW = 64;
+    private static final int MAX_WINDOW = 1 << 30;
+    private static final Entry SKIPPED = new Entry(0, null, null, 0, null);
+
+    private final int capacity;
+    private final int window;
+    private final IntFunction<? extends Task> resolver;
+    private final AtomicReference<Journal> journal;
+
+    public ConcurrentHistoryManager() {
+        this(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param resolver задача по id из живого хранилища или null, если задачи уже нет;
+     *                 без хранилища журнал хранит сами просмотренные задачи
+     */
+    public ConcurrentHistoryManager(int capacity, IntFunction<? extends Task> resolver) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Вместимость истории должна быть положительной: " + capacity);
+        }
+
+        final long window = Math.max(MIN_WINDOW, Math.min(MAX_WINDOW, (long) capacity * WINDOW_FACTOR));
+
+        if (window < 2L * capacity) {
+            throw new IllegalArgumentException("Слишком большая вместимость истории: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.window = (int) window;
+        this.resolver = resolver;
+        this.journal = new AtomicReference<>(new Journal(this.window, List.of()));
+    }
+
+    @Override
+    public void add(Task task) {
+        final Entry entry = new Entry(task.getId(), resolver == null ? task : null,
+                InMemoryHistoryManager.typeOf(task), 0, null);
+
+        while (!append(journal.get(), entry)) {
+            // Журнал сжат, просмотр пишется в новый
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        removeIf(entry -> entry.id == id);
+    }
+
+    @Override
+    public void removeAll(IntArraySet ids) {
+        removeIf(entry -> ids.contains(entry.id));
+    }
+
+    @Override
+    public void removeAllTasksOfType(Class<? extends Task> type) {
+        final TaskType taskType = InMemoryHistoryManager.typeOf(type);
+
+        removeIf(entry -> entry.type == taskType);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        final List<Entry> visible = view();
+        final List<Task> history = new ArrayList<>(visible.size());
+
+        for (Entry entry : visible) {
+            final Task task = resolver == null ? entry.task : resolver.apply(entry.id);
+
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        return history;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Удаление - одна метка на все подходящие задачи. Задачи и границу метка берёт из журнала ровно до своей ячейки:
+     * ячейка сначала занимается, затем по журналу до неё собирается история. Недописанные ячейки ниже читатель
+     * пропускает, и их операции уходят выше метки, так что метка точно соответствует истории в момент удаления.
+     * Если ячейку метки до записи пропустил читатель, удаление повторяется в следующей.
+     * Удаление задач, которых нет в истории, журнал не занимает.
+     */
+    private void removeIf(Predicate<Entry> matcher) {
+        if (view().stream().noneMatch(matcher)) {
+            return;
+        }
+
+        while (true) {
+            final Journal current = journal.get();
+            final int index = current.next.getAndIncrement();
+
+            if (index >= current.entries.length()) {
+                compact(current);
+                continue;
+            }
+
+            final List<Entry> visible = visible(current, index);
+            final IntArraySet removed = new IntArraySet();
+
+            for (Entry entry : visible) {
+                if (matcher.test(entry)) {
+                    removed.add(entry.id);
+                }
+            }
+
+            final Entry tombstone = removed.isEmpty()
+                    ? SKIPPED
+                    : new Entry(0, null, null, visible.get(0).floor, removed);
+
+            if (current.entries.compareAndSet(index, null, tombstone)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Пишет операцию в журнал. Возвращает false, если журнал заполнен и уже заменён сжатым.
+     */
+    private boolean append(Journal current, Entry entry) {
+        while (true) {
+            final int index = current.next.getAndIncrement();
+
+            if (index >= current.entries.length()) {
+                compact(current);
+                return false;
+            }
+            // Ячейку мог пропустить читатель, тогда операция занимает следующую
+            if (current.entries.compareAndSet(index, null, entry)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * История по текущему журналу. Заполненный журнал сначала сжимается: пока в журнале есть свободные
+     * ячейки, новых операций нет ни в каком другом, и чтение видит все операции, занявшие ячейку до него.
+     */
+    private List<Entry> view() {
+        while (true) {
+            final Journal current = journal.get();
+            final int end = current.next.get();
+
+            if (end < current.entries.length()) {
+                return visible(current, end);
+            }
+            compact(current);
+        }
+    }
+
+    private void compact(Journal full) {
+        if (journal.get() == full) {
+            journal.compareAndSet(full, new Journal(window, visible(full, full.entries.length())));
+        }
+    }
+
+    /**
+     * Просмотры из первых end ячеек журнала, составляющие историю, от старых к новым.
+     * У каждого в floor записан его номер в журнале.
+     */
+    private List<Entry> visible(Journal current, int end) {
+        final IntArraySet seen = new IntArraySet();
+        final Deque<Entry> visible = new ArrayDeque<>(capacity);
+        int floor = 0;
+
+        for (int index = end - 1; index >= floor && visible.size() < capacity; index--) {
+            Entry entry = current.entries.get(index);
+
+            if (entry == null && !current.entries.compareAndSet(index, null, SKIPPED)) {
+                entry = current.entries.get(index);
+            }
+            if (entry == null || entry == SKIPPED) {
+                continue;
+            }
+            if (entry.type == null) {
+                entry.removed.forEach(seen::add);
+                floor = Math.max(floor, entry.floor);
+            } else if (seen.add(entry.id)) {
+                visible.addFirst(new Entry(entry.id, entry.task, entry.type, index, null));
+            }
+        }
+        return new ArrayList<>(visible);
+    }
+
+    private static final class Journal {
+        final AtomicReferenceArray<Entry> entries;
+        final AtomicInteger next;
+
+        /**
+         * Журнал, который начинается с уже видимых просмотров.
+         */
+        Journal(int window, List<Entry> visible) {
+            entries = new AtomicReferenceArray<>(window);
+            next = new AtomicInteger(visible.size());
+
+            for (int i = 0; i < visible.size(); i++) {
+                entries.set(i, visible.get(i));
+            }
+        }
+    }
+
+    /**
+     * Операция журнала: просмотр задачи или, если type == null, удаление задач removed.
+     * Задача хранится только без хранилища, иначе task == null и она берётся из хранилища при чтении.
+     * У удаления floor - номер ячейки самого старого просмотра, который был в истории в момент удаления.
+     */
+    private static final class Entry {
+        final int id;
+        final Task task;
+        final TaskType type;
+        final int floor;
+        final IntArraySet removed;
+
+        Entry(int id, Task task, TaskType type, int floor, IntArraySet removed) {
+            this.id = id;
+            this.task = task;
+            this.type = type;
+            this.floor = floor;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
+import tasks.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над любым {@link TaskManager}.
+ * Запись и чтение по id (оно пишет в историю) выполняются под эксклюзивной блокировкой.
+ * Списки, которые {@link InMemoryTaskManager} отдаёт из одного неизменяемого снимка, читаются оптимистично
+ * без блокировки и повторяются под блокировкой чтения, только если за это время успела пройти запись.
+ * Остальные чтения обходят изменяемые структуры (историю, множества подзадач эпика, поисковый индекс),
+ * поэтому сразу берут блокировку чтения: без неё такой обход может увидеть их посреди записи.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final StampedLock lock = new StampedLock();
+    private final TaskQuery query = new ReadOnlyTaskQuery(this);
+
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Task createEpic(Epic epic) {
+        return write(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public Task createSubtask(Subtask subtask) {
+        return write(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public Task createNormalTask(Task task) {
+        return write(() -> delegate.createNormalTask(task));
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        return write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public Task updateNormalTask(Task task) {
+        return write(() -> delegate.updateNormalTask(task));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        write(() -> delegate.deleteEpic(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        write(() -> delegate.deleteSubtask(id));
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(delegate::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(delegate::deleteAllSubtasks);
+    }
+
+    @Override
+    public void deleteAllNormalTasks() {
+        write(delegate::deleteAllNormalTasks);
+    }
+
+    @Override
+    public void deleteNormalTask(int id) {
+        write(() -> delegate.deleteNormalTask(id));
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> tasks) {
+        return write(() -> delegate.createAll(tasks));
+    }
+
+    @Override
+    public List<Task> updateAll(List<? extends Task> tasks) {
+        return write(() -> delegate.updateAll(tasks));
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        write(() -> delegate.deleteAll(ids));
+    }
+
+    @Override
+    public Task findSubtaskById(int id) {
+        return write(() -> delegate.findSubtaskById(id));
+    }
+
+    @Override
+    public Task findEpicById(int id) {
+        return write(() -> delegate.findEpicById(id));
+    }
+
+    @Override
+    public Task findNormalTaskById(int id) {
+        return write(() -> delegate.findNormalTaskById(id));
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return read(() -> delegate.peekEpic(id));
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return read(() -> delegate.peekSubtask(id));
+    }
+
+    @Override
+    public Task peekNormalTask(int id) {
+        return read(() -> delegate.peekNormalTask(id));
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        return read(() -> delegate.peekTask(id));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return readSnapshot(delegate::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return readSnapshot(delegate::getAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getAllNormalTasks() {
+        return readSnapshot(delegate::getAllNormalTasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksForEpic(int epicId) {
+        return read(() -> delegate.getSubtasksForEpic(epicId));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return write(() -> delegate.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return write(() -> delegate.getSubtask(id));
+    }
+
+    @Override
+    public Task getNormalTask(int id) {
+        return write(() -> delegate.getNormalTask(id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return readSnapshot(delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return readSnapshot(() -> delegate.getTasksBetween(from, to));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return read(() -> delegate.findFreeSlot(duration, notBefore, notAfter));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        return readSnapshot(() -> delegate.getTasksByStatus(status, type));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(String cursor, int limit) {
+        return readSnapshot(() -> delegate.getEpicsPage(cursor, limit));
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(String cursor, int limit) {
+        return readSnapshot(() -> delegate.getSubtasksPage(cursor, limit));
+    }
+
+    @Override
+    public TaskPage<Task> getNormalTasksPage(String cursor, int limit) {
+        return readSnapshot(() -> delegate.getNormalTasksPage(cursor, limit));
+    }
+
+    @Override
+    public TaskPage<Task> getPrioritizedTasksPage(String cursor, int limit) {
+        return readSnapshot(() -> delegate.getPrioritizedTasksPage(cursor, limit));
+    }
+
+    /**
+     * Запросы через это представление не берут эксклюзивную блокировку.
+     */
+    @Override
+    public TaskQuery query() {
+        return query;
+    }
+
+    @Override
+    public void getEpicTime(Epic epic) {
+        write(() -> delegate.getEpicTime(epic));
+    }
+
+    /**
+     * Оптимистичное чтение. Только для чтений, которые целиком берут данные из одного неизменяемого снимка:
+     * такое чтение не может увидеть структуру посреди записи, а validate лишь проверяет, что снимок не устарел.
+     */
+    private <T> T readSnapshot(Supplier<T> reader) {
+        final long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            final T result = reader.get();
+
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        return read(reader);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        final long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable writer) {
+        long stamp = lock.writeLock();
+        try {
+            writer.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
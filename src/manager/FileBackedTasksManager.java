@@ -5,6 +5,8 @@ import tasks.enums.TaskType;
 import tasks.models.Epic;
 import tasks.models.Subtask;
 import tasks.models.Task;
+import util.IntArraySet;
+import util.IntObjectMap;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -13,6 +15,7 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import java.time.LocalDateTime;
@@ -22,86 +25,148 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final File saveFile;
+    private boolean inTransaction;
+    private boolean dirty;
+    // Состояние задач до их первого изменения в транзакции, по id
+    private IntObjectMap<TaskState> undo;
+    // Порядок истории до её первого изменения в транзакции или null, пока история не менялась
+    private List<Integer> historyBefore;
 
     public FileBackedTasksManager(File saveFile) {
+        this(saveFile, new LocalIdAllocator());
+    }
+
+    public FileBackedTasksManager(File saveFile, IdAllocator idAllocator) {
+        super(idAllocator);
         this.saveFile = saveFile;
     }
 
-    private static void addTaskToManager(Task task) {
+    private void addTaskToManager(Task task) {
         final int id = task.getId();
 
         switch (task.getType()) {
             case NORMAL:
                 normalTasksMap.put(id, task);
+                restoreTaskTime(task);
                 break;
             case SUBTASK:
                 subtasksMap.put(id, (Subtask) task);
+                restoreTaskTime(task);
                 break;
             case EPIC:
                 epicsMap.put(id, (Epic) task);
                 break;
         }
+        indexTask(task);
     }
 
     public static FileBackedTasksManager loadFromFile(File file) {
         FileBackedTasksManager manager = new FileBackedTasksManager(file);
+        manager.load();
+        return manager;
+    }
+
+    /**
+     * Начинает транзакцию: до {@link #commit()} изменения остаются в памяти и не сохраняются.
+     * Для {@link #rollback()} каждая операция запоминает прежние значения полей только тех задач, которые она
+     * затрагивает, а история запоминается при первом её изменении, поэтому транзакция стоит столько,
+     * сколько задач она меняет.
+     */
+    public void begin() {
+        if (inTransaction) {
+            throw new IllegalStateException("Транзакция уже начата");
+        }
+        undo = new IntObjectMap<>();
+        inTransaction = true;
+    }
+
+    /**
+     * Сохраняет изменения транзакции одной записью. Транзакция без изменений ничего не пишет.
+     */
+    public void commit() {
+        requireTransaction();
+        finishTransaction();
+
+        if (dirty) {
+            dirty = false;
+            persist();
+        }
+    }
+
+    /**
+     * Отменяет транзакцию, возвращая состояние на момент {@link #begin()}.
+     * Задачи, которые были до начала, остаются теми же объектами: откат возвращает им прежние значения полей,
+     * а удалённые в транзакции задачи возвращает в хранилище. Задачи, созданные в транзакции, удаляются.
+     * Перестраиваются только затронутые задачи: их места в индексах, статус и время их эпиков.
+     * Подписчики уже получили события отменённых изменений, поэтому откат публикует обратные:
+     * удаление созданных задач, создание удалённых и обновление изменённых.
+     */
+    public void rollback() {
+        requireTransaction();
+
+        final IntObjectMap<TaskState> touched = undo;
+        final List<Integer> history = historyBefore;
+
+        finishTransaction();
+        dirty = false;
+        undoTasks(touched);
+
+        if (history != null) {
+            restoreHistory(history);
+        }
+        events.dispatch();
+    }
 
+    public boolean isInTransaction() {
+        return inTransaction;
+    }
+
+    protected void load() {
         try {
-            String fileContent = Files.readString(Path.of(file.getPath()));
+            String fileContent = Files.readString(Path.of(saveFile.getPath()));
             String[] lines = fileContent.split("\n");
 
-            int maxId = 0;
+            boolean historySection = false;
 
             List<Integer> historyIds = new ArrayList<>();
 
             for (String line : lines) {
-                if (!line.isEmpty()) {
-                    Task task = fromString(line);
-
-                    if (task.getId() > maxId) {
-                        maxId = task.getId();
-                    }
-
-                    addTaskToManager(task);
-
+                if (historySection) {
+                    historyIds.addAll(historyFromString(line));
+                } else if (!line.isEmpty()) {
+                    addTaskToManager(fromString(line));
                 } else {
-                    List<Integer> taskIds = historyFromString(line);
-
-                    historyIds.addAll(taskIds);
+                    historySection = true;
                 }
             }
-            manager.nextId = maxId + 1;
+            restoreNextId();
+            epicsMap.forEachValue(this::restoreEpic);
 
             for (int taskId : historyIds) {
-                Task task = normalTasksMap.get(taskId);
-                Epic epic = epicsMap.get(taskId);
-                Subtask subtask = subtasksMap.get(taskId);
+                Task task = peekTask(taskId);
 
                 if (task != null) {
-                    manager.historyManager.add(task);
-                } else if (epic != null) {
-                    manager.historyManager.add(epic);
-                } else if (subtask != null) {
-                    manager.historyManager.add(subtask);
+                    historyManager.add(task);
                 }
             }
         } catch (IOException e) {
             System.out.println("Failed to load manager state from file" + e.getMessage());
         }
-
-        return manager;
     }
 
     @Override
     public Epic createEpic(Epic epic) {
         Epic createdEpic = super.createEpic(epic);
+        touchCreated(createdEpic);
         save();
         return createdEpic;
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
+        touch(subtask.getEpicId());
         Subtask createdSubtask = super.createSubtask(subtask);
+        touchCreated(createdSubtask);
         save();
         return createdSubtask;
     }
@@ -109,12 +174,81 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     @Override
     public Task createNormalTask(Task task) {
         Task createdTask = super.createNormalTask(task);
+        touchCreated(createdTask);
         save();
         return createdTask;
     }
 
+    @Override
+    public List<Task> createAll(List<? extends Task> tasks) {
+        for (Task task : tasks) {
+            if (task instanceof Subtask) {
+                touch(((Subtask) task).getEpicId());
+            }
+        }
+        List<Task> createdTasks = super.createAll(tasks);
+        createdTasks.forEach(this::touchCreated);
+        save();
+        return createdTasks;
+    }
+
+    @Override
+    public List<Task> updateAll(List<? extends Task> tasks) {
+        for (Task task : tasks) {
+            touchWithEpic(task.getId());
+        }
+        List<Task> updatedTasks = super.updateAll(tasks);
+        save();
+        return updatedTasks;
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        for (int id : ids) {
+            touchWithRelated(id);
+        }
+        touchHistory();
+        super.deleteAll(ids);
+        save();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        if (inTransaction) {
+            epicsMap.forEachKey(this::touch);
+            subtasksMap.forEachKey(this::touch);
+            touchHistory();
+        }
+        super.deleteAllEpics();
+        save();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        if (inTransaction) {
+            subtasksMap.forEachValue(subtask -> {
+                touch(subtask.getId());
+                touch(subtask.getEpicId());
+            });
+            touchHistory();
+        }
+        super.deleteAllSubtasks();
+        save();
+    }
+
+    @Override
+    public void deleteAllNormalTasks() {
+        if (inTransaction) {
+            normalTasksMap.forEachKey(this::touch);
+            touchHistory();
+        }
+        super.deleteAllNormalTasks();
+        save();
+    }
+
     @Override
     public Task getNormalTask(int id) {
+        touchHistory();
         super.getNormalTask(id);
         save();
         return normalTasksMap.get(id);
@@ -122,6 +256,7 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
 
     @Override
     public Subtask getSubtask(int id) {
+        touchHistory();
         super.getSubtask(id);
         save();
         return subtasksMap.get(id);
@@ -129,52 +264,72 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
 
     @Override
     public Epic getEpic(int id) {
+        touchHistory();
         super.getEpic(id);
         save();
         return epicsMap.get(id);
     }
 
-    /*
     @Override
     public Epic updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        //save();
-        return epic;
+        touch(epic.getId());
+        Epic updatedEpic = super.updateEpic(epic);
+        save();
+        return updatedEpic;
     }
 
     @Override
     public Subtask updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        //save();
-        return subtask;
+        touchWithEpic(subtask.getId());
+        Subtask updatedSubtask = super.updateSubtask(subtask);
+        save();
+        return updatedSubtask;
     }
 
     @Override
     public Task updateNormalTask(Task task) {
-        super.updateNormalTask(task);
-        //save();
-        return task;
+        touch(task.getId());
+        Task updatedTask = super.updateNormalTask(task);
+        save();
+        return updatedTask;
     }
-     */
+
     @Override
     public void deleteEpic(int id) {
+        touchWithRelated(id);
+        touchHistory();
         super.deleteEpic(id);
-        //save();
+        save();
     }
 
     @Override
     public void deleteSubtask(int id) {
+        touchWithRelated(id);
+        touchHistory();
         super.deleteSubtask(id);
-        //save();
+        save();
     }
 
     @Override
     public void deleteNormalTask(int id) {
+        touch(id);
+        touchHistory();
         super.deleteNormalTask(id);
-        //save();
+        save();
     }
-    
+
+    /**
+     * Сохраняет состояние сразу или, внутри транзакции, отмечает его изменённым до {@link #commit()}.
+     */
     protected void save() {
+        if (inTransaction) {
+            dirty = true;
+        } else {
+            persist();
+        }
+    }
+
+    protected void persist() {
         try (PrintWriter writer = new PrintWriter(new FileWriter(saveFile))) {
 
             for (Epic epic : getAllEpics()) {
@@ -194,8 +349,217 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         }
     }
 
+    private void requireTransaction() {
+        if (!inTransaction) {
+            throw new IllegalStateException("Транзакция не начата");
+        }
+    }
+
+    private void finishTransaction() {
+        inTransaction = false;
+        undo = null;
+        historyBefore = null;
+    }
+
+    /**
+     * Запоминает задачу до её первого изменения в транзакции. Отсутствующая задача запоминается как
+     * отсутствующая: если её создадут в транзакции, откат её удалит.
+     */
+    private void touch(int id) {
+        if (inTransaction && !undo.containsKey(id)) {
+            final Task task = peekTask(id);
+            undo.put(id, task == null ? TaskState.ABSENT : new TaskState(task));
+        }
+    }
+
+    /**
+     * Запоминает, что задачи, созданной в транзакции, до транзакции не было.
+     */
+    private void touchCreated(Task task) {
+        if (inTransaction && task != null && !undo.containsKey(task.getId())) {
+            undo.put(task.getId(), TaskState.ABSENT);
+        }
+    }
+
+    /**
+     * Запоминает задачу, а если это подзадача, то и её эпик: изменение подзадачи меняет статус и время эпика.
+     */
+    private void touchWithEpic(int id) {
+        if (!inTransaction) {
+            return;
+        }
+        touch(id);
+
+        final Subtask subtask = peekSubtask(id);
+
+        if (subtask != null) {
+            touch(subtask.getEpicId());
+        }
+    }
+
+    /**
+     * Запоминает удаляемую задачу и то, что удаление меняет вместе с ней: эпик подзадачи или подзадачи эпика.
+     */
+    private void touchWithRelated(int id) {
+        if (!inTransaction) {
+            return;
+        }
+        touchWithEpic(id);
+
+        final Epic epic = peekEpic(id);
+
+        if (epic != null) {
+            epic.forEachSubtaskId(this::touch);
+        }
+    }
+
+    private void touchHistory() {
+        if (inTransaction && historyBefore == null) {
+            historyBefore = new ArrayList<>();
+
+            for (Task task : historyManager.getHistory()) {
+                historyBefore.add(task.getId());
+            }
+        }
+    }
+
+    /**
+     * Возвращает затронутым задачам прежние значения. Сначала все их нынешние версии убираются из хранилища
+     * и индексов, чтобы прежнее время задач не пересеклось с нынешним, затем прежние версии вносятся заново,
+     * а эпики пересчитываются по восстановленным подзадачам.
+     */
+    private void undoTasks(IntObjectMap<TaskState> touched) {
+        final IntArraySet ids = new IntArraySet();
+        final IntObjectMap<Task> current = new IntObjectMap<>();
+        final IntObjectMap<TaskStatus> currentStatuses = new IntObjectMap<>();
+
+        touched.forEachKey(id -> {
+            final Task task = removeTaskEntry(id);
+
+            ids.add(id);
+            if (task != null) {
+                current.put(id, task);
+                currentStatuses.put(id, task.getStatus());
+            }
+        });
+        prioritizedIndex.removeAll(ids);
+        timeIndex.removeAll(ids);
+        statusIndex.removeAll(ids);
+        searchIndex.removeAll(ids);
+
+        touched.forEachValue(state -> {
+            if (state != TaskState.ABSENT) {
+                addTaskToManager(state.restore());
+            }
+        });
+        touched.forEachValue(state -> {
+            if (state.task instanceof Epic) {
+                restoreEpic((Epic) state.task);
+            }
+        });
+
+        touched.forEach((id, state) -> {
+            final Task task = current.get(id);
+
+            if (state == TaskState.ABSENT) {
+                if (task != null) {
+                    historyManager.remove(id);
+                    events.publish(TaskEvent.Kind.DELETED, task, null);
+                }
+            } else if (task == null) {
+                events.publish(TaskEvent.Kind.CREATED, state.task, null);
+            } else {
+                events.publish(TaskEvent.Kind.UPDATED, state.task, null);
+
+                if (currentStatuses.get(id) != state.task.getStatus()) {
+                    events.publish(TaskEvent.Kind.STATUS_CHANGED, state.task, currentStatuses.get(id));
+                }
+            }
+        });
+    }
+
+    private Task removeTaskEntry(int id) {
+        final Epic epic = epicsMap.remove(id);
+
+        if (epic != null) {
+            return epic;
+        }
+
+        final Subtask subtask = subtasksMap.remove(id);
+        return subtask != null ? subtask : normalTasksMap.remove(id);
+    }
+
+    private void restoreHistory(List<Integer> history) {
+        historyManager.removeAllTasksOfType(Epic.class);
+        historyManager.removeAllTasksOfType(Subtask.class);
+        historyManager.removeAllTasksOfType(Task.class);
+
+        for (int taskId : history) {
+            Task task = peekTask(taskId);
+
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    /**
+     * Задача со значениями её полей на момент первого изменения в транзакции.
+     */
+    private static final class TaskState {
+        // Задачи ещё не было
+        static final TaskState ABSENT = new TaskState();
+
+        private final Task task;
+        private final String name;
+        private final String description;
+        private final TaskStatus status;
+        private final int duration;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final List<Integer> subtaskIds;
+
+        private TaskState() {
+            task = null;
+            name = null;
+            description = null;
+            status = null;
+            duration = 0;
+            startTime = null;
+            endTime = null;
+            subtaskIds = List.of();
+        }
+
+        TaskState(Task task) {
+            this.task = task;
+            this.name = task.getName();
+            this.description = task.getDescription();
+            this.status = task.getStatus();
+            this.duration = task.getDuration();
+            this.startTime = task.getStartTime();
+            this.endTime = task.getEndTime();
+            this.subtaskIds = task instanceof Epic ? ((Epic) task).getSubtaskIds() : List.of();
+        }
+
+        Task restore() {
+            if (task instanceof Epic) {
+                Epic epic = (Epic) task;
+
+                epic.deleteAllSubtaskIds();
+                subtaskIds.forEach(epic::addSubtaskId);
+                epic.setEndTime(endTime);
+            }
+            task.setName(name);
+            task.setDescription(description);
+            task.setStatus(status);
+            task.setDuration(duration);
+            task.setStartTime(startTime);
+            return task;
+        }
+    }
+
     private static Task fromString(String value) {
-        String[] parts = value.split(",");
+        String[] parts = value.split(",", -1);
 
         int id = Integer.parseInt(parts[0]);
         TaskType type = TaskType.valueOf(parts[1]);
@@ -203,15 +567,14 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         TaskStatus status = TaskStatus.valueOf(parts[3]);
         String description = parts[4];
         int duration = Integer.parseInt(parts[5]);
-        LocalDateTime startTime = LocalDateTime.parse(parts[6], formatter);
+        LocalDateTime startTime = parts[6].isEmpty() ? null : LocalDateTime.parse(parts[6], formatter);
 
         if (type == TaskType.EPIC) {
             Epic epic = new Epic(id, name, description, status, duration, startTime);
 
-            String subtaskIdsStr = parts[7].replaceAll("\\[|\\]", "");
-            String[] subtaskIdsArray = subtaskIdsStr.split(", ");
+            for (int i = 7; i < parts.length; i++) {
+                String subtaskId = parts[i].replaceAll("\\[|\\]", "").trim();
 
-            for (String subtaskId : subtaskIdsArray) {
                 if (!subtaskId.isEmpty()) {
                     epic.addSubtaskId(Integer.parseInt(subtaskId));
                 }
@@ -221,7 +584,10 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         } else if (type == TaskType.SUBTASK) {
             int epicId = Integer.parseInt(parts[7]);
 
-            return new Subtask(id, name, description, epicId, duration, startTime);
+            Subtask subtask = new Subtask(id, name, description, epicId, duration, startTime);
+            subtask.setStatus(status);
+
+            return subtask;
         } else {
             return new Task(id, name, description, type, status, duration, startTime);
         }
@@ -232,20 +598,24 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
             Epic epic = (Epic) task;
 
             return String.format("%d,%s,%s,%s,%s,%d,%s,%s", task.getId(), task.getType(), task.getName(),
-                    task.getStatus(), task.getDescription(), task.getDuration(), task.getStartTime().format(formatter),
-                    epic.getSubtaskIds());
+                    task.getStatus(), task.getDescription(), task.getDuration(), formatStartTime(task),
+                    epic.subtaskIdsToString());
         } else if (task.getType() == TaskType.SUBTASK) {
             Subtask subtask = (Subtask) task;
 
             return String.format("%d,%s,%s,%s,%s,%d,%s,%d", task.getId(), task.getType(), task.getName(),
-                    task.getStatus(), task.getDescription(), task.getDuration(), task.getStartTime().format(formatter),
+                    task.getStatus(), task.getDescription(), task.getDuration(), formatStartTime(task),
                     subtask.getEpicId());
         } else {
             return String.format("%d,%s,%s,%s,%s,%d,%s", task.getId(), task.getType(), task.getName(),
-                    task.getStatus(), task.getDescription(), task.getDuration(), task.getStartTime().format(formatter));
+                    task.getStatus(), task.getDescription(), task.getDuration(), formatStartTime(task));
         }
     }
 
+    private static String formatStartTime(Task task) {
+        return task.getStartTime() == null ? "" : task.getStartTime().format(formatter);
+    }
+
     private static String historyToString(List<Task> taskList) {
         List<String> historyList = new ArrayList<>();
         for (Task task : taskList) {
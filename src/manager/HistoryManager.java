@@ -1,6 +1,7 @@
 package manager;
 
 import tasks.models.Task;
+import util.IntArraySet;
 
 import java.util.List;
 
@@ -9,6 +10,8 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    void removeAll(IntArraySet ids);
+
     void removeAllTasksOfType(Class<? extends Task> type);
     List<Task> getHistory();
 }
\ No newline at end of file
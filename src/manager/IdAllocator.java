@@ -0,0 +1,13 @@
+package manager;
+
+/**
+ * Источник идентификаторов задач. Выданный id больше не выдаётся, даже если задачу не удалось создать.
+ */
+public interface IdAllocator {
+    int nextId();
+
+    /**
+     * Гарантирует, что следующие id будут больше указанного. Нужен после загрузки уже существующих задач.
+     */
+    void advancePast(int id);
+}
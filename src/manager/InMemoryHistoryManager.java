@@ -1,116 +1,277 @@
 package manager;
 
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
 import tasks.models.Task;
+import util.IntArraySet;
+import util.IntIntMap;
+import util.IntObjectMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-
+import java.util.function.IntFunction;
 
+/**
+ * История просмотров ограниченного размера, которая хранит только id задач.
+ * Записи лежат в ячейках параллельных массивов int и связаны в двусвязный список номерами ячеек,
+ * индекс id -> ячейка тоже примитивный. Поэтому добавление, удаление и вытеснение самой старой записи
+ * занимают O(1) при любой вместимости и ничего не создают: при заполненной истории под новую задачу
+ * переиспользуется ячейка вытесненной.
+ * Кроме общего списка, ячейки каждого {@link TaskType} связаны в свой список, так что удаление из истории
+ * всех задач одного типа проходит только по записям этого типа.
+ * Задачи подставляются при чтении из хранилища, которое передал менеджер задач: история отдаёт их текущие
+ * версии и не удерживает в памяти удалённые или заменённые при загрузке объекты.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
-    private CustomLinkedList historyList = new CustomLinkedList();
-    private Map<Integer, Node> taskNodeMap = new HashMap<>();
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private static final int NONE = -1;
+    private static final int MIN_SLOTS = 16;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final int capacity;
+    private final IntFunction<? extends Task> resolver;
+    private final IntObjectMap<Task> ownTasks;
+    private final IntIntMap slotsById = new IntIntMap();
+    private int[] ids;
+    private int[] previous;
+    private int[] next;
+    private int[] previousOfType;
+    private int[] nextOfType;
+    private byte[] types;
+    private final int[] typeHeads = new int[TYPES.length];
+    private final int[] typeTails = new int[TYPES.length];
+    private int head = NONE;
+    private int tail = NONE;
+    private int freeSlot = NONE;
+    private int usedSlots;
+    private int size;
+
+    /**
+     * История без хранилища задач: сама помнит задачи, которые сейчас в истории.
+     */
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, new IntObjectMap<>());
+    }
+
+    /**
+     * @param resolver задача по id из живого хранилища или null, если задачи уже нет
+     */
+    public InMemoryHistoryManager(int capacity, IntFunction<? extends Task> resolver) {
+        this(capacity, resolver, null);
+    }
+
+    private InMemoryHistoryManager(int capacity, IntObjectMap<Task> ownTasks) {
+        this(capacity, ownTasks::get, ownTasks);
+    }
+
+    private InMemoryHistoryManager(int capacity, IntFunction<? extends Task> resolver, IntObjectMap<Task> ownTasks) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Вместимость истории должна быть положительной: " + capacity);
+        }
+
+        final int slots = Math.min(capacity, MIN_SLOTS);
+
+        this.capacity = capacity;
+        this.resolver = resolver;
+        this.ownTasks = ownTasks;
+        this.ids = new int[slots];
+        this.previous = new int[slots];
+        this.next = new int[slots];
+        this.previousOfType = new int[slots];
+        this.nextOfType = new int[slots];
+        this.types = new byte[slots];
+        Arrays.fill(typeHeads, NONE);
+        Arrays.fill(typeTails, NONE);
+    }
 
     @Override
     public void add(Task task) {
-        if (taskNodeMap.containsKey(task.getId())) {
-            Node node = taskNodeMap.get(task.getId());
+        final int id = task.getId();
+        int slot = slotsById.get(id);
 
-            historyList.removeNode(node);
+        if (slot != IntIntMap.MISSING) {
+            unlink(slot);
+        } else if (size == capacity) {
+            slot = head;
+            unlink(slot);
+            slotsById.remove(ids[slot]);
+            forget(ids[slot]);
+            slotsById.put(id, slot);
+        } else {
+            slot = allocate();
+            slotsById.put(id, slot);
         }
 
-        historyList.linkLast(task);
-        taskNodeMap.put(task.getId(), historyList.tail);
+        ids[slot] = id;
+        types[slot] = (byte) typeOf(task).ordinal();
+        linkLast(slot);
 
-        if (historyList.getTasks().size() > 10) {
-            Node removedNode = historyList.head;
-
-            historyList.removeNode(removedNode);
-            taskNodeMap.remove(removedNode.task.getId());
+        if (ownTasks != null) {
+            ownTasks.put(id, task);
         }
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
     @Override
     public void remove(int id) {
-        if (taskNodeMap.containsKey(id)) {
-            Node nodeToRemove = taskNodeMap.get(id);
+        final int slot = slotsById.remove(id);
 
-            historyList.removeNode(nodeToRemove);
-            taskNodeMap.remove(id);
+        if (slot != IntIntMap.MISSING) {
+            unlink(slot);
+            release(slot);
+            forget(id);
         }
     }
 
+    @Override
+    public void removeAll(IntArraySet ids) {
+        ids.forEach(this::remove);
+    }
+
+    /**
+     * Удаляет задачи ровно этого типа: {@code Task.class} - только обычные задачи, без эпиков и подзадач.
+     */
     @Override
     public void removeAllTasksOfType(Class<? extends Task> type) {
-        List<Task> tasksToRemove = new ArrayList<>();
+        final int taskType = typeOf(type).ordinal();
+
+        while (typeHeads[taskType] != NONE) {
+            final int slot = typeHeads[taskType];
 
-        for (Node node : taskNodeMap.values()) {
-            Task task = node.task;
+            slotsById.remove(ids[slot]);
+            forget(ids[slot]);
+            unlink(slot);
+            release(slot);
+        }
+    }
+
+    /**
+     * Задачи истории от старых к новым. Id, которых уже нет в хранилище, пропускаются.
+     */
+    @Override
+    public List<Task> getHistory() {
+        final List<Task> tasks = new ArrayList<>(size);
 
-            if (type.isInstance(task)) {
-                tasksToRemove.add(task);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            final Task task = resolver.apply(ids[slot]);
+
+            if (task != null) {
+                tasks.add(task);
             }
         }
+        return tasks;
+    }
 
-        for (Task taskToRemove : tasksToRemove) {
-            remove(taskToRemove.getId());
+    static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
         }
+        return TaskType.NORMAL;
     }
 
-    @Override
-    public List<Task> getHistory() {
-        return historyList.getTasks();
+    static TaskType typeOf(Class<? extends Task> type) {
+        if (Epic.class.isAssignableFrom(type)) {
+            return TaskType.EPIC;
+        }
+        if (Subtask.class.isAssignableFrom(type)) {
+            return TaskType.SUBTASK;
+        }
+        return TaskType.NORMAL;
     }
-}
 
-class Node {
-    Task task;
-    Node next;
-    Node prev;
+    private int allocate() {
+        if (freeSlot != NONE) {
+            final int slot = freeSlot;
+
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (usedSlots == ids.length) {
+            final int slots = (int) Math.min(capacity, ids.length * 2L);
 
-    public Node(Task task) {
-        this.task = task;
+            ids = Arrays.copyOf(ids, slots);
+            previous = Arrays.copyOf(previous, slots);
+            next = Arrays.copyOf(next, slots);
+            previousOfType = Arrays.copyOf(previousOfType, slots);
+            nextOfType = Arrays.copyOf(nextOfType, slots);
+            types = Arrays.copyOf(types, slots);
+        }
+        return usedSlots++;
+    }
+
+    private void release(int slot) {
+        next[slot] = freeSlot;
+        freeSlot = slot;
+    }
+
+    private void forget(int id) {
+        if (ownTasks != null) {
+            ownTasks.remove(id);
+        }
     }
-}
 
-class CustomLinkedList {
-    protected Node head;
-    protected Node tail;
+    private void linkLast(int slot) {
+        final int type = types[slot];
 
-    void linkLast(Task task) {
-        Node newNode = new Node(task);
+        previous[slot] = tail;
+        next[slot] = NONE;
 
-        if (tail == null) {
-            head = tail = newNode;
+        if (tail == NONE) {
+            head = slot;
         } else {
-            tail.next = newNode;
-            newNode.prev = tail;
-            tail = newNode;
+            next[tail] = slot;
         }
-    }
+        tail = slot;
 
-    List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
+        previousOfType[slot] = typeTails[type];
+        nextOfType[slot] = NONE;
 
-        Node current = head;
-        while (current != null) {
-            tasks.add(current.task);
-            current = current.next;
+        if (typeTails[type] == NONE) {
+            typeHeads[type] = slot;
+        } else {
+            nextOfType[typeTails[type]] = slot;
         }
-        return tasks;
+        typeTails[type] = slot;
+        size++;
     }
 
-    void removeNode(Node node) {
-        if (node.prev != null) {
-            node.prev.next = node.next;
+    private void unlink(int slot) {
+        if (previous[slot] != NONE) {
+            next[previous[slot]] = next[slot];
         } else {
-            head = node.next;
+            head = next[slot];
         }
-        if (node.next != null) {
-            node.next.prev = node.prev;
+        if (next[slot] != NONE) {
+            previous[next[slot]] = previous[slot];
         } else {
-            tail = node.prev;
+            tail = previous[slot];
         }
+
+        final int type = types[slot];
+
+        if (previousOfType[slot] != NONE) {
+            nextOfType[previousOfType[slot]] = nextOfType[slot];
+        } else {
+            typeHeads[type] = nextOfType[slot];
+        }
+        if (nextOfType[slot] != NONE) {
+            previousOfType[nextOfType[slot]] = previousOfType[slot];
+        } else {
+            typeTails[type] = previousOfType[slot];
+        }
+        size--;
     }
-}
\ No newline at end of file
+}
@@ -1,34 +1,73 @@
 package manager;
 
-import comparator.TasksComparator;
 import exceptions.VerificationException;
 import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
 import tasks.models.Epic;
 import tasks.models.Task;
 import tasks.models.Subtask;
+import util.IntArraySet;
+import util.IntObjectMap;
+import util.PersistentSortedSet;
+import util.SnapshotIntObjectMap;
 
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 import java.time.LocalDateTime;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected int nextId = 1;
-    protected static Map<Integer, Epic> epicsMap = new HashMap<>();
-    protected static Map<Integer, Subtask> subtasksMap = new HashMap<>();
-    protected static Map<Integer, Task> normalTasksMap = new HashMap<>();
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    protected static TreeSet<Task> tasksTreeSet = new TreeSet<>(new TasksComparator());
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+    private static final char ID_CURSOR = 'i';
+    private static final char PRIORITY_CURSOR = 'p';
+
+    protected final IdAllocator idAllocator;
+    protected final SnapshotIntObjectMap<Epic> epicsMap = new SnapshotIntObjectMap<>(BY_ID);
+    protected final SnapshotIntObjectMap<Subtask> subtasksMap = new SnapshotIntObjectMap<>(BY_ID);
+    protected final SnapshotIntObjectMap<Task> normalTasksMap = new SnapshotIntObjectMap<>(BY_ID);
+    protected final HistoryManager historyManager;
+    protected final PrioritizedIndex prioritizedIndex = new PrioritizedIndex();
+    protected final TaskTimeIndex timeIndex = new TaskTimeIndex();
+    protected final TaskStatusIndex statusIndex = new TaskStatusIndex();
+    protected final TaskSearchIndex searchIndex = new TaskSearchIndex();
+    protected final TaskEventBus events = new TaskEventBus();
+    private final TaskQuery query = new ReadOnlyTaskQuery(this);
+
+    public InMemoryTaskManager() {
+        this(new LocalIdAllocator());
+    }
+
+    /**
+     * История хранит только id и берёт задачи из хранилища этого менеджера при чтении.
+     */
+    public InMemoryTaskManager(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        this.historyManager = new InMemoryHistoryManager(InMemoryHistoryManager.DEFAULT_CAPACITY, this::peekTask);
+    }
+
+    /**
+     * @param historyManager история просмотров, например {@link InMemoryHistoryManager} нужной вместимости
+     */
+    public InMemoryTaskManager(IdAllocator idAllocator, HistoryManager historyManager) {
+        this.idAllocator = idAllocator;
+        this.historyManager = historyManager;
+    }
 
     @Override
     public Epic createEpic(Epic epic) {
         try {
-            final int taskId = nextId++;
+            final int taskId = idAllocator.nextId();
             epic.setId(taskId);
 
             epicsMap.put(taskId, epic);
-            updateEpicStatus(epic.getId());
+            restoreEpic(epic);
             addTask(epic);
+            events.publish(TaskEvent.Kind.CREATED, epic, null);
 
-            return epic;
+            return dispatch(epic);
         } catch (VerificationException e) {
             System.out.println("Ошибка верификации: " + e.getMessage());
             return null;
@@ -38,18 +77,20 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Subtask createSubtask(Subtask subtask) {
         try {
-            final int taskId = nextId++;
+            final int taskId = idAllocator.nextId();
             subtask.setId(taskId);
 
-            Epic epic = (Epic) findEpicById(subtask.getEpicId());
+            Epic epic = peekEpic(subtask.getEpicId());
 
             if (epic != null) {
-                subtasksMap.put(taskId, subtask);
-                epic.addSubtaskId(taskId);
-                updateEpicStatus(subtask.getEpicId());
                 addTask(subtask);
+                subtasksMap.put(taskId, subtask);
+
+                epic.addSubtask(subtask);
+                events.publish(TaskEvent.Kind.CREATED, subtask, null);
+                indexTask(epic);
 
-                return subtask;
+                return dispatch(subtask);
             } else {
                 System.out.println("Эпик с указанным ID не найден. Пожалуйста, создайте эпик сначала.");
                 return null;
@@ -63,14 +104,15 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Task createNormalTask(Task task) {
         try {
-            final int taskId = nextId++;
+            final int taskId = idAllocator.nextId();
             task.setId(taskId);
 
-            normalTasksMap.put(taskId, task);
             addTask(task);
+            normalTasksMap.put(taskId, task);
             historyManager.add(task);
+            events.publish(TaskEvent.Kind.CREATED, task, null);
 
-            return task;
+            return dispatch(task);
         } catch (VerificationException e) {
             System.out.println("Ошибка верификации: " + e.getMessage());
             return null;
@@ -79,13 +121,14 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic updateEpic(Epic epic) {
-        Epic savedEpic = (Epic) findEpicById(epic.getId());
+        Epic savedEpic = peekEpic(epic.getId());
 
         if (savedEpic != null) {
             savedEpic.setName(epic.getName());
             savedEpic.setDescription(epic.getDescription());
-            savedEpic.setStatus(epic.getStatus());
-            return savedEpic;
+            searchIndex.add(savedEpic);
+            events.publish(TaskEvent.Kind.UPDATED, savedEpic, null);
+            return dispatch(savedEpic);
         } else {
             System.out.println("Эпик с указанным ID не найден.");
             return null;
@@ -96,29 +139,33 @@ public class InMemoryTaskManager implements TaskManager {
     public Subtask updateSubtask(Subtask subtask) {
         try {
             final int id = subtask.getId();
-            final int epicId = subtask.getEpicId();
 
-            Subtask savedSubtask = (Subtask) findSubtaskById(id);
-
-            tasksTreeSet.remove(subtask);
+            Subtask savedSubtask = peekSubtask(id);
 
             if (savedSubtask != null) {
-                savedSubtask.setName(subtask.getName());
-                savedSubtask.setDescription(subtask.getDescription());
-                savedSubtask.setStatus(subtask.getStatus());
-
-                Epic epic = (Epic) findEpicById(epicId);
+                Epic epic = peekEpic(savedSubtask.getEpicId());
 
                 if (epic != null) {
-                    addTask(subtask);
-                    updateEpicStatus(epicId);
+                    timeIndex.add(subtask);
+
+                    epic.replaceSubtask(subtask);
+
+                    savedSubtask.setName(subtask.getName());
+                    savedSubtask.setDescription(subtask.getDescription());
+                    savedSubtask.setStatus(subtask.getStatus());
+                    savedSubtask.setStartTime(subtask.getStartTime());
+                    savedSubtask.setDuration(subtask.getDuration());
+
+                    events.publish(TaskEvent.Kind.UPDATED, savedSubtask, null);
+                    indexTask(savedSubtask);
+                    indexTask(epic);
                 } else {
                     System.out.println("Эпик с указанным ID не найден.");
                 }
             } else {
                 System.out.println("Подзадача с указанным ID не найдена.");
             }
-            return savedSubtask;
+            return dispatch(savedSubtask);
         } catch (VerificationException e) {
             System.out.println("Ошибка верификации: " + e.getMessage());
             return null;
@@ -131,17 +178,21 @@ public class InMemoryTaskManager implements TaskManager {
             final int id = task.getId();
             final Task savedTask = normalTasksMap.get(id);
 
-            tasksTreeSet.remove(task);
-
             if (savedTask != null) {
+                timeIndex.add(task);
+
                 savedTask.setName(task.getName());
                 savedTask.setDescription(task.getDescription());
                 savedTask.setStatus(task.getStatus());
-                addTask(task);
+                savedTask.setStartTime(task.getStartTime());
+                savedTask.setDuration(task.getDuration());
+
+                events.publish(TaskEvent.Kind.UPDATED, savedTask, null);
+                indexTask(savedTask);
             } else {
                 System.out.println("Задача с указанным ID не найдена.");
             }
-            return savedTask;
+            return dispatch(savedTask);
         } catch (VerificationException e) {
             System.out.println("Ошибка верификации: " + e.getMessage());
             return null;
@@ -150,36 +201,33 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteEpic(int id) {
-        Epic epic = (Epic) findEpicById(id);
-
-        if (epic != null) {
-            tasksTreeSet.remove(epic);
-            epicsMap.remove(id);
-
-            List<Integer> subtaskIds = epic.getSubtaskIds();
-
-            for (int subtaskId : subtaskIds) {
-                deleteSubtask(subtaskId);
-            }
+        final IntArraySet removedIds = new IntArraySet();
 
-            historyManager.remove(id);
+        if (removeEpicEntry(id, removedIds) != null) {
+            unindexAll(removedIds);
         } else {
             System.out.println("Эпик с указанным ID не найден.");
         }
+        events.dispatch();
     }
 
     @Override
     public void deleteSubtask(int id) {
-        Subtask subtask = subtasksMap.get(id);
+        final IntArraySet removedIds = new IntArraySet();
+        Subtask subtask = removeSubtaskEntry(id, removedIds);
 
         if (subtask != null) {
-            tasksTreeSet.remove(subtask);
-            updateEpicStatus(((Subtask) subtask).getEpicId());
-            subtasksMap.remove(id);
-            historyManager.remove(id);
+            unindexAll(removedIds);
+            Epic epic = epicsMap.get(subtask.getEpicId());
+
+            if (epic != null) {
+                epic.removeSubtask(subtask);
+                indexTask(epic);
+            }
         } else {
             System.out.println("Подзадача с указанным ID не найдена.");
         }
+        events.dispatch();
     }
 
     @Override
@@ -187,47 +235,229 @@ public class InMemoryTaskManager implements TaskManager {
         Task normalTask = normalTasksMap.get(id);
 
         if (normalTask != null) {
-            tasksTreeSet.remove(normalTask);
+            prioritizedIndex.remove(id);
+            timeIndex.remove(id);
+            statusIndex.remove(id);
+            searchIndex.remove(id);
             normalTasksMap.remove(id);
             historyManager.remove(id);
+            events.publish(TaskEvent.Kind.DELETED, normalTask, null);
         } else {
             System.out.println("Задача с указанным ID не найдена.");
         }
+        events.dispatch();
     }
 
     @Override
     public void deleteAllEpics() {
+        epicsMap.forEachKey(prioritizedIndex::remove);
+        subtasksMap.forEachKey(prioritizedIndex::remove);
+        subtasksMap.forEachKey(timeIndex::remove);
+        epicsMap.forEachKey(searchIndex::remove);
+        subtasksMap.forEachKey(searchIndex::remove);
+        statusIndex.clear(TaskType.EPIC);
+        statusIndex.clear(TaskType.SUBTASK);
+        subtasksMap.forEachValue(subtask -> events.publish(TaskEvent.Kind.DELETED, subtask, null));
+        epicsMap.forEachValue(epic -> events.publish(TaskEvent.Kind.DELETED, epic, null));
         epicsMap.clear();
         subtasksMap.clear();
 
         historyManager.removeAllTasksOfType(Epic.class);
-
-        tasksTreeSet.removeIf(task -> task instanceof Epic);
+        historyManager.removeAllTasksOfType(Subtask.class);
+        events.dispatch();
     }
 
     @Override
     public void deleteAllSubtasks() {
+        subtasksMap.forEachKey(prioritizedIndex::remove);
+        subtasksMap.forEachKey(timeIndex::remove);
+        subtasksMap.forEachKey(searchIndex::remove);
+        statusIndex.clear(TaskType.SUBTASK);
+        subtasksMap.forEachValue(subtask -> events.publish(TaskEvent.Kind.DELETED, subtask, null));
         subtasksMap.clear();
 
         if (!epicsMap.isEmpty()) {
 
             for (Epic epic : epicsMap.values()) {
                 epic.deleteAllSubtaskIds();
-                updateEpicStatus(epic.getId());
+                indexTask(epic);
             }
         }
         historyManager.removeAllTasksOfType(Subtask.class);
-
-        tasksTreeSet.removeIf(task -> task instanceof Subtask);
+        events.dispatch();
     }
 
     @Override
     public void deleteAllNormalTasks() {
+        normalTasksMap.forEachKey(prioritizedIndex::remove);
+        normalTasksMap.forEachKey(timeIndex::remove);
+        normalTasksMap.forEachKey(searchIndex::remove);
+        statusIndex.clear(TaskType.NORMAL);
+        normalTasksMap.forEachValue(task -> events.publish(TaskEvent.Kind.DELETED, task, null));
         normalTasksMap.clear();
 
         historyManager.removeAllTasksOfType(Task.class);
+        events.dispatch();
+    }
+
+    /**
+     * Создаёт пачку задач. Пересечения проверяются одним проходом по отсортированной пачке,
+     * и если хоть одна задача не проходит проверку, не создаётся ни одна.
+     * Подзадачи должны ссылаться на уже существующие эпики. Время и статус каждого эпика пересчитываются один раз.
+     */
+    @Override
+    public List<Task> createAll(List<? extends Task> tasks) {
+        try {
+            for (Task task : tasks) {
+                if (task instanceof Subtask && !epicsMap.containsKey(((Subtask) task).getEpicId())) {
+                    throw new VerificationException("Эпик " + ((Subtask) task).getEpicId() + " не найден");
+                }
+            }
+            validateSchedule(tasks);
+        } catch (VerificationException e) {
+            System.out.println("Ошибка верификации: " + e.getMessage());
+            return List.of();
+        }
+
+        final List<Task> created = new ArrayList<>(tasks.size());
+        final IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+
+        for (Task task : tasks) {
+            final int taskId = idAllocator.nextId();
+            task.setId(taskId);
+
+            if (task instanceof Epic) {
+                final Epic epic = (Epic) task;
+
+                epicsMap.put(taskId, epic);
+                restoreEpic(epic);
+                indexTask(epic);
+            } else if (task instanceof Subtask) {
+                final Subtask subtask = (Subtask) task;
+                final Epic epic = detachEpic(subtask.getEpicId(), touchedEpics);
+
+                restoreTaskTime(subtask);
+                subtasksMap.put(taskId, subtask);
+                indexTask(subtask);
+                epic.addSubtask(subtask);
+            } else {
+                restoreTaskTime(task);
+                normalTasksMap.put(taskId, task);
+                indexTask(task);
+                historyManager.add(task);
+            }
+            created.add(task);
+            events.publish(TaskEvent.Kind.CREATED, task, null);
+        }
+        touchedEpics.forEachValue(this::indexTask);
+
+        return dispatch(created);
+    }
+
+    /**
+     * Обновляет пачку задач. Старые интервалы обновляемых задач освобождаются на время проверки,
+     * поэтому задачи в пачке могут меняться местами. При пересечении пачка откатывается целиком.
+     * Задачи с несуществующим id пропускаются.
+     */
+    @Override
+    public List<Task> updateAll(List<? extends Task> tasks) {
+        final List<Task> updates = new ArrayList<>(tasks.size());
+        final List<Task> savedTasks = new ArrayList<>(tasks.size());
+
+        for (Task task : tasks) {
+            final Task savedTask = findSaved(task);
+
+            if (savedTask != null) {
+                updates.add(task);
+                savedTasks.add(savedTask);
+            } else {
+                System.out.println("Задача с ID " + task.getId() + " не найдена.");
+            }
+        }
+
+        savedTasks.forEach(savedTask -> timeIndex.remove(savedTask.getId()));
+
+        try {
+            validateSchedule(updates);
+        } catch (VerificationException e) {
+            savedTasks.forEach(this::restoreTaskTime);
+            System.out.println("Ошибка верификации: " + e.getMessage());
+            return List.of();
+        }
+
+        final IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+
+        for (int i = 0; i < updates.size(); i++) {
+            final Task task = updates.get(i);
+            final Task savedTask = savedTasks.get(i);
+
+            if (savedTask instanceof Epic) {
+                savedTask.setName(task.getName());
+                savedTask.setDescription(task.getDescription());
+                searchIndex.add(savedTask);
+                events.publish(TaskEvent.Kind.UPDATED, savedTask, null);
+                continue;
+            }
+
+            if (savedTask instanceof Subtask) {
+                final Epic epic = detachEpic(((Subtask) savedTask).getEpicId(), touchedEpics);
+
+                if (epic != null) {
+                    epic.replaceSubtask((Subtask) task);
+                }
+            }
+
+            savedTask.setName(task.getName());
+            savedTask.setDescription(task.getDescription());
+            savedTask.setStatus(task.getStatus());
+            savedTask.setStartTime(task.getStartTime());
+            savedTask.setDuration(task.getDuration());
+
+            restoreTaskTime(savedTask);
+            events.publish(TaskEvent.Kind.UPDATED, savedTask, null);
+            indexTask(savedTask);
+        }
+        touchedEpics.forEachValue(this::indexTask);
+
+        return dispatch(savedTasks);
+    }
+
+    /**
+     * Удаляет задачи любых типов по id. Эпики удаляются вместе с подзадачами,
+     * а эпики, у которых удалили часть подзадач, пересчитываются один раз.
+     * Все удалённые id убираются из индексов и истории одной пачкой, так что стоимость зависит
+     * только от числа удалённых задач.
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        final IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        final IntArraySet removedIds = new IntArraySet();
+
+        for (int id : ids) {
+            removeEpicEntry(id, removedIds);
+        }
+
+        for (int id : ids) {
+            final Subtask subtask = removeSubtaskEntry(id, removedIds);
+
+            if (subtask != null) {
+                final Epic epic = detachEpic(subtask.getEpicId(), touchedEpics);
 
-        tasksTreeSet.removeIf(task -> task instanceof Task);
+                if (epic != null) {
+                    epic.removeSubtask(subtask);
+                }
+            }
+
+            final Task task = normalTasksMap.remove(id);
+
+            if (task != null) {
+                removedIds.add(id);
+                events.publish(TaskEvent.Kind.DELETED, task, null);
+            }
+        }
+        unindexAll(removedIds);
+        touchedEpics.forEachValue(this::indexTask);
+        events.dispatch();
     }
 
     @Override
@@ -265,17 +495,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epicsMap.values());
+        return epicsMap.snapshot().asList();
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasksMap.values());
+        return subtasksMap.snapshot().asList();
     }
 
     @Override
     public List<Task> getAllNormalTasks() {
-        return new ArrayList<>(normalTasksMap.values());
+        return normalTasksMap.snapshot().asList();
     }
 
     @Override
@@ -285,16 +515,14 @@ public class InMemoryTaskManager implements TaskManager {
         Epic epic = epicsMap.get(epicId);
 
         if (epic != null) {
-            List<Integer> subtaskIds = epic.getSubtaskIds();
-
-            for (int subtaskId : subtaskIds) {
+            epic.forEachSubtaskId(subtaskId -> {
                 Subtask subtask = subtasksMap.get(subtaskId);
                 if (subtask != null) {
                     subtasks.add(subtask);
                 } else {
                     System.out.println("Подзадача с ID " + subtaskId + " не найдена.");
                 }
-            }
+            });
         } else {
             System.out.println("Эпик с указанным ID не найден.");
         }
@@ -320,36 +548,21 @@ public class InMemoryTaskManager implements TaskManager {
         return normalTasksMap.get(id);
     }
 
-    private void updateEpicStatus(int epicId) {
-        Epic epic = (Epic) findEpicById(epicId);
-
-        if (epic != null) {
-            List<Integer> subs = epic.getSubtaskIds();
+    protected void restoreEpic(Epic epic) {
+        final boolean prioritized = prioritizedIndex.contains(epic.getId());
+        List<Subtask> subtasks = new ArrayList<>(epic.getSubtaskCount());
 
-            if (subs.isEmpty()) {
-                epic.setStatus(TaskStatus.NEW);
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasksMap.get(subtaskId);
 
-                return;
+            if (subtask != null) {
+                subtasks.add(subtask);
             }
-            TaskStatus status = null;
-
-            for (int id : subs) {
-                final Subtask subtask = (Subtask) findSubtaskById(id);
-
-                if (status == null) {
-                    status = subtask.getStatus();
-                    continue;
-                }
-                if (status == subtask.getStatus() && status != TaskStatus.IN_PROGRESS) {
-                    continue;
-                }
-                epic.setStatus(TaskStatus.IN_PROGRESS);
+        });
+        epic.restoreSubtasks(subtasks);
 
-                return;
-            }
-            epic.setStatus(status);
-        } else {
-            System.out.println("Эпик с указанным ID не найден.");
+        if (prioritized) {
+            indexTask(epic);
         }
     }
 
@@ -358,50 +571,334 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public ArrayList<Task> getPrioritizedTasks() {
-        return new ArrayList<>(tasksTreeSet);
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedIndex.snapshot().asList();
+    }
+
+    /**
+     * Задачи со временем начала в [from, to) в порядке приоритета. Любая граница может быть null.
+     * Результат - срез снимка: O(log n) на поиск границ, элементы не копируются.
+     */
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало диапазона " + from + " позже конца " + to);
+        }
+        return prioritizedIndex.snapshot().between(from, to);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Продолжительность должна быть положительной: " + duration);
+        }
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не указано самое раннее время начала");
+        }
+        return timeIndex.findFreeSlot(duration, notBefore, notAfter);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        return statusIndex.get(status, type);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(String cursor, int limit) {
+        return page(epicsMap.snapshot(), cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(String cursor, int limit) {
+        return page(subtasksMap.snapshot(), cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Task> getNormalTasksPage(String cursor, int limit) {
+        return page(normalTasksMap.snapshot(), cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Task> getPrioritizedTasksPage(String cursor, int limit) {
+        return prioritizedPage(prioritizedIndex.snapshot(), cursor, limit);
+    }
+
+    @Override
+    public TaskQuery query() {
+        return query;
+    }
+
+    /**
+     * Подписывает на изменения задач. События доставляются после того, как изменение полностью завершено,
+     * в порядке их номеров. Загрузка сохранённого состояния событий не порождает.
+     */
+    public void addListener(TaskEventListener listener) {
+        events.addListener(listener);
+    }
+
+    public void removeListener(TaskEventListener listener) {
+        events.removeListener(listener);
     }
 
     public void getEpicTime(Epic epic) {
-        if (!epic.getSubtaskIds().isEmpty()) {
-            LocalDateTime subEndTime = getSubtasksForEpic(epic.getId()).get(0).getEndTime();
-            LocalDateTime subStartTime = getSubtasksForEpic(epic.getId()).get(0).getStartTime();
-            int duration = 0;
-
-            for (Subtask subtask : getSubtasksForEpic(epic.getId())) {
-                if (subtask.getEndTime() == null || subtask.getStartTime() == null) {
-                    continue;
-                }
-                if (subtask.getEndTime().isAfter(subEndTime)) {
-                    subEndTime = subtask.getEndTime();
-                }
-                if (subtask.getStartTime().isBefore(subStartTime)) {
-                    subStartTime = subtask.getStartTime();
-                }
-                duration += subtask.getDuration();
-            }
-            epic.setDuration(duration);
-            epic.setStartTime(subStartTime);
-            epic.setEndTime(subEndTime);
+        restoreEpic(epic);
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return epicsMap.get(id);
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return subtasksMap.get(id);
+    }
+
+    @Override
+    public Task peekNormalTask(int id) {
+        return normalTasksMap.get(id);
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        Task task = normalTasksMap.get(id);
+
+        if (task == null) {
+            task = epicsMap.get(id);
         }
+        if (task == null) {
+            task = subtasksMap.get(id);
+        }
+        return task;
     }
 
-    private void addTask(Task task) throws VerificationException {
-        for (Task expTask : tasksTreeSet) {
-            if (Objects.equals(task.getId(), expTask.getId())) {
-                continue;
+    /**
+     * Продолжает нумерацию после самого большого загруженного id.
+     */
+    protected void restoreNextId() {
+        idAllocator.advancePast(Math.max(lastId(epicsMap), Math.max(lastId(subtasksMap), lastId(normalTasksMap))));
+    }
+
+    protected void restoreTaskTime(Task task) {
+        if (task.getType() == TaskType.EPIC) {
+            return;
+        }
+        try {
+            timeIndex.add(task);
+        } catch (VerificationException e) {
+            System.out.println("Ошибка верификации: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Вносит задачу в список приоритетов, индекс статусов и поисковый индекс. Вызывается и для уже
+     * проиндексированной задачи, когда у неё поменялись время, статус или текст. Смена статуса публикуется событием.
+     */
+    protected void indexTask(Task task) {
+        prioritizedIndex.add(task);
+        searchIndex.add(task);
+
+        final TaskStatus previousStatus = statusIndex.add(task);
+
+        if (previousStatus != null && previousStatus != task.getStatus()) {
+            events.publish(TaskEvent.Kind.STATUS_CHANGED, task, previousStatus);
+        }
+    }
+
+    /**
+     * Проверяет пачку на пересечения с уже запланированными задачами и между собой за один проход по времени начала.
+     * При равном начале точечные задачи идут первыми: они не пересекаются с интервалом, который с них начинается.
+     */
+    private void validateSchedule(List<? extends Task> tasks) throws VerificationException {
+        final List<Task> scheduled = new ArrayList<>(tasks.size());
+
+        for (Task task : tasks) {
+            if (!(task instanceof Epic) && task.getStartTime() != null) {
+                scheduled.add(task);
             }
-            if (expTask.getStartTime() == null || task.getStartTime() == null) {
-                break;
+        }
+        scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getDuration));
+
+        LocalDateTime busyUntil = null;
+
+        for (Task task : scheduled) {
+            final boolean overlapsBatch = busyUntil != null && busyUntil.isAfter(task.getStartTime());
+
+            if (overlapsBatch || timeIndex.overlaps(task.getStartTime(), task.getEndTime())) {
+                throw new VerificationException("Задача " + task.getName() + " пересекается по времени с другой задачей");
             }
-            if (task.getEndTime().isBefore(expTask.getStartTime()) ||
-                    task.getEndTime().equals(expTask.getStartTime()) ||
-                    task.getStartTime().isAfter(expTask.getEndTime()) ||
-                    task.getStartTime().equals(expTask.getEndTime())) {
-            } else {
-                throw new VerificationException("Задача не добавлена!");
+            if (busyUntil == null || task.getEndTime().isAfter(busyUntil)) {
+                busyUntil = task.getEndTime();
+            }
+        }
+    }
+
+    private Task findSaved(Task task) {
+        if (task instanceof Epic) {
+            return epicsMap.get(task.getId());
+        }
+        if (task instanceof Subtask) {
+            return subtasksMap.get(task.getId());
+        }
+        return normalTasksMap.get(task.getId());
+    }
+
+    /**
+     * Запоминает эпик, затронутый пакетным изменением. Место эпика в списке приоритетов и индексе статусов
+     * нужно пересчитать после пачки через {@link #indexTask}, по одному разу на эпик.
+     */
+    private Epic detachEpic(int epicId, IntObjectMap<Epic> touchedEpics) {
+        Epic epic = touchedEpics.get(epicId);
+
+        if (epic == null) {
+            epic = epicsMap.get(epicId);
+
+            if (epic != null) {
+                touchedEpics.put(epicId, epic);
+            }
+        }
+        return epic;
+    }
+
+    /**
+     * Убирает эпик и его подзадачи из хранилища, не пересчитывая удаляемый эпик после каждой подзадачи.
+     * Удалённые id добавляются в removedIds, из индексов их потом убирает {@link #unindexAll}.
+     */
+    private Epic removeEpicEntry(int id, IntArraySet removedIds) {
+        final Epic epic = epicsMap.remove(id);
+
+        if (epic != null) {
+            epic.forEachSubtaskId(subtaskId -> removeSubtaskEntry(subtaskId, removedIds));
+            removedIds.add(id);
+            events.publish(TaskEvent.Kind.DELETED, epic, null);
+        }
+        return epic;
+    }
+
+    private Subtask removeSubtaskEntry(int id, IntArraySet removedIds) {
+        final Subtask subtask = subtasksMap.remove(id);
+
+        if (subtask != null) {
+            removedIds.add(id);
+            events.publish(TaskEvent.Kind.DELETED, subtask, null);
+        }
+        return subtask;
+    }
+
+    /**
+     * Убирает удалённые задачи из всех индексов и истории, проходя по каждому индексу один раз.
+     */
+    private void unindexAll(IntArraySet ids) {
+        prioritizedIndex.removeAll(ids);
+        timeIndex.removeAll(ids);
+        statusIndex.removeAll(ids);
+        searchIndex.removeAll(ids);
+        historyManager.removeAll(ids);
+    }
+
+    /**
+     * Раздаёт подписчикам события завершённого изменения и возвращает его результат.
+     */
+    private <T> T dispatch(T result) {
+        events.dispatch();
+        return result;
+    }
+
+    private void addTask(Task task) throws VerificationException {
+        if (!(task instanceof Epic)) {
+            timeIndex.add(task);
+        }
+        indexTask(task);
+    }
+
+    /**
+     * Страница по ключу последнего выданного элемента: следующая страница начинается сразу после него,
+     * даже если сам элемент успели удалить. Обход не касается предыдущих страниц.
+     */
+    private static <T extends Task> TaskPage<T> page(PersistentSortedSet<T> snapshot, String cursor, int limit) {
+        final int pageSize = pageSize(limit);
+        final Iterator<T> iterator = cursor == null || cursor.isEmpty()
+                ? snapshot.iterator()
+                : decodeCursor(ID_CURSOR, cursor, key -> {
+                    final int id = Integer.parseInt(key);
+                    return snapshot.iteratorAfter(task -> Integer.compare(id, task.getId()));
+                });
+        final List<T> items = new ArrayList<>(Math.min(pageSize, snapshot.size()));
+
+        while (items.size() < pageSize && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+
+        final String nextCursor = iterator.hasNext()
+                ? encodeCursor(ID_CURSOR, Integer.toString(items.get(items.size() - 1).getId()))
+                : null;
+        return new TaskPage<>(items, nextCursor);
+    }
+
+    /**
+     * Ключ задачи со временем - "id:startTime", задачи без времени - "#номер добавления".
+     */
+    private static TaskPage<Task> prioritizedPage(PrioritizedIndex.Snapshot snapshot, String cursor, int limit) {
+        final int pageSize = pageSize(limit);
+        final Iterator<PrioritizedIndex.Entry> iterator = cursor == null || cursor.isEmpty()
+                ? snapshot.entries()
+                : decodeCursor(PRIORITY_CURSOR, cursor, key -> {
+                    if (key.startsWith("#")) {
+                        return snapshot.entriesAfter(0, null, Long.parseLong(key.substring(1)));
+                    }
+                    final int separator = key.indexOf(':');
+                    return snapshot.entriesAfter(Integer.parseInt(key.substring(0, separator)),
+                            LocalDateTime.parse(key.substring(separator + 1)), 0);
+                });
+        final List<Task> items = new ArrayList<>(Math.min(pageSize, snapshot.size()));
+        PrioritizedIndex.Entry last = null;
+
+        while (items.size() < pageSize && iterator.hasNext()) {
+            last = iterator.next();
+            items.add(last.getTask());
+        }
+
+        String nextCursor = null;
+
+        if (iterator.hasNext()) {
+            nextCursor = encodeCursor(PRIORITY_CURSOR, last.getStartTime() == null
+                    ? "#" + last.getSequence()
+                    : last.getTask().getId() + ":" + last.getStartTime());
+        }
+        return new TaskPage<>(items, nextCursor);
+    }
+
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static int lastId(SnapshotIntObjectMap<? extends Task> tasks) {
+        final PersistentSortedSet<? extends Task> snapshot = tasks.snapshot();
+        return snapshot.isEmpty() ? 0 : snapshot.get(snapshot.size() - 1).getId();
+    }
+
+    private static String encodeCursor(char kind, String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((kind + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <R> R decodeCursor(char kind, String cursor, Function<String, R> parser) {
+        try {
+            final String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (key.isEmpty() || key.charAt(0) != kind) {
+                throw new IllegalArgumentException("Курсор выдан для другого списка: " + cursor);
             }
+            return parser.apply(key.substring(1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
         }
-        tasksTreeSet.add(task);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчик id внутри одного процесса. Не берёт блокировок, поэтому безопасен при параллельном создании задач.
+ */
+public class LocalIdAllocator implements IdAllocator {
+    private final AtomicInteger next = new AtomicInteger(1);
+
+    @Override
+    public int nextId() {
+        return next.getAndIncrement();
+    }
+
+    @Override
+    public void advancePast(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+}
@@ -2,12 +2,17 @@ package manager;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import adapters.IntArraySetAdapter;
+import adapters.IntObjectMapAdapterFactory;
 import adapters.LocalDateTimeAdapter;
 import http.HttpTaskManager;
+import tasks.models.Task;
+import util.IntArraySet;
 
 import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.function.IntFunction;
 public class Managers {
     public static TaskManager getDefault() throws IOException, InterruptedException {
         return new HttpTaskManager(URI.create("http://localhost:6000"));
@@ -16,11 +21,24 @@ public class Managers {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    /**
+     * @param resolver задача по id из живого хранилища, например {@code taskManager.query()::peekTask}
+     */
+    public static HistoryManager getConcurrentHistory(int capacity, IntFunction<? extends Task> resolver) {
+        return new ConcurrentHistoryManager(capacity, resolver);
+    }
+
     public static Gson getGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         return gsonBuilder.setPrettyPrinting()
                 .serializeNulls()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(IntArraySet.class, new IntArraySetAdapter())
+                .registerTypeAdapterFactory(new IntObjectMapAdapterFactory())
                 .create();
     }
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+package manager;
+
+import tasks.models.Task;
+import util.IntArraySet;
+import util.IntObjectMap;
+import util.PersistentSortedSet;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Список приоритетов: задачи со временем начала в порядке (startTime, id), за ними задачи без времени
+ * в порядке добавления. Порядок полный, поэтому задачи с одинаковым началом не теряются.
+ * Ключ каждой задачи запоминается при добавлении, так что удаление по id работает за O(log n),
+ * даже если время задачи уже успели поменять.
+ */
+public class PrioritizedIndex {
+    private static final Comparator<Entry> BY_START = Comparator.comparing(Entry::getStartTime)
+            .thenComparingInt(entry -> entry.task.getId());
+    private static final Comparator<Entry> BY_INSERTION = Comparator.comparingLong(Entry::getSequence);
+    private static final Snapshot EMPTY = new Snapshot(PersistentSortedSet.empty(BY_START),
+            PersistentSortedSet.empty(BY_INSERTION));
+
+    private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+    private volatile Snapshot snapshot = EMPTY;
+    private long nextSequence;
+
+    /**
+     * Добавляет задачу или переставляет уже добавленную по её текущему времени.
+     * Задача без времени, которая и раньше была без времени, сохраняет своё место.
+     */
+    public synchronized void add(Task task) {
+        final Entry previous = entries.get(task.getId());
+        final LocalDateTime startTime = task.getStartTime();
+        final long sequence = startTime == null && previous != null && previous.startTime == null
+                ? previous.sequence
+                : nextSequence++;
+        final Entry entry = new Entry(task, startTime, sequence);
+
+        snapshot = without(snapshot, previous).with(entry);
+        entries.put(task.getId(), entry);
+    }
+
+    public synchronized boolean remove(int id) {
+        final Entry entry = entries.remove(id);
+
+        if (entry == null) {
+            return false;
+        }
+        snapshot = without(snapshot, entry);
+        return true;
+    }
+
+    /**
+     * Удаляет задачи пачкой: читатели получают один новый снимок вместо промежуточного на каждую задачу.
+     */
+    public synchronized void removeAll(IntArraySet ids) {
+        Snapshot result = snapshot;
+
+        for (int id : ids.toArray()) {
+            result = without(result, entries.remove(id));
+        }
+        snapshot = result;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        snapshot = EMPTY;
+    }
+
+    public boolean contains(int id) {
+        return entries.containsKey(id);
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Целостная версия списка, которую можно читать без блокировки.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private static Snapshot without(Snapshot snapshot, Entry entry) {
+        if (entry == null) {
+            return snapshot;
+        }
+        return entry.startTime == null
+                ? new Snapshot(snapshot.scheduled, snapshot.unscheduled.remove(entry))
+                : new Snapshot(snapshot.scheduled.remove(entry), snapshot.unscheduled);
+    }
+
+    /**
+     * Задача вместе с ключом, под которым она лежит в списке.
+     */
+    public static final class Entry {
+        private final Task task;
+        private final LocalDateTime startTime;
+        private final long sequence;
+
+        Entry(Task task, LocalDateTime startTime, long sequence) {
+            this.task = task;
+            this.startTime = startTime;
+            this.sequence = sequence;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public LocalDateTime getStartTime() {
+            return startTime;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
+    public static final class Snapshot {
+        private final PersistentSortedSet<Entry> scheduled;
+        private final PersistentSortedSet<Entry> unscheduled;
+
+        private Snapshot(PersistentSortedSet<Entry> scheduled, PersistentSortedSet<Entry> unscheduled) {
+            this.scheduled = scheduled;
+            this.unscheduled = unscheduled;
+        }
+
+        private Snapshot with(Entry entry) {
+            return entry.startTime == null
+                    ? new Snapshot(scheduled, unscheduled.add(entry))
+                    : new Snapshot(scheduled.add(entry), unscheduled);
+        }
+
+        public int size() {
+            return scheduled.size() + unscheduled.size();
+        }
+
+        /**
+         * Весь список: сначала задачи со временем, потом без него. Создаётся за O(1).
+         */
+        public List<Task> asList() {
+            return new TaskList(scheduled.asList(), unscheduled.asList());
+        }
+
+        /**
+         * Задачи со временем начала в [from, to). Любая граница может быть null. Поиск границ занимает O(log n).
+         */
+        public List<Task> between(LocalDateTime from, LocalDateTime to) {
+            final int first = from == null ? 0 : countStartingBefore(from);
+            final int last = to == null ? scheduled.size() : countStartingBefore(to);
+
+            return new TaskList(scheduled.slice(first, last), List.of());
+        }
+
+        public Iterator<Entry> entries() {
+            return new Concat(scheduled.iterator(), unscheduled);
+        }
+
+        /**
+         * Обходит записи строго после ключа записи: (startTime, id) для задачи со временем
+         * и номер добавления для задачи без него. Запись с таким ключом не обязана присутствовать в списке.
+         */
+        public Iterator<Entry> entriesAfter(int id, LocalDateTime startTime, long sequence) {
+            if (startTime == null) {
+                return unscheduled.iteratorAfter(entry -> Long.compare(sequence, entry.sequence));
+            }
+            return new Concat(scheduled.iteratorAfter(entry -> {
+                final int compare = startTime.compareTo(entry.startTime);
+                return compare != 0 ? compare : Integer.compare(id, entry.task.getId());
+            }), unscheduled);
+        }
+
+        private int countStartingBefore(LocalDateTime time) {
+            return scheduled.rank(entry -> time.isAfter(entry.startTime) ? 1 : -1);
+        }
+    }
+
+    private static final class Concat implements Iterator<Entry> {
+        private final Iterator<Entry> head;
+        private final PersistentSortedSet<Entry> tail;
+        private Iterator<Entry> current;
+
+        Concat(Iterator<Entry> head, PersistentSortedSet<Entry> tail) {
+            this.head = head;
+            this.tail = tail;
+            this.current = head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!current.hasNext() && current == head) {
+                current = tail.iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    private static final class TaskList extends AbstractList<Task> {
+        private final List<Entry> scheduled;
+        private final List<Entry> unscheduled;
+
+        TaskList(List<Entry> scheduled, List<Entry> unscheduled) {
+            this.scheduled = scheduled;
+            this.unscheduled = unscheduled;
+        }
+
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size());
+            }
+            return index < scheduled.size()
+                    ? scheduled.get(index).task
+                    : unscheduled.get(index - scheduled.size()).task;
+        }
+
+        @Override
+        public int size() {
+            return scheduled.size() + unscheduled.size();
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            final Iterator<Entry> first = scheduled.iterator();
+            final Iterator<Entry> second = unscheduled.iterator();
+
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return first.hasNext() || second.hasNext();
+                }
+
+                @Override
+                public Task next() {
+                    return first.hasNext() ? first.next().task : second.next().task;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
+import tasks.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Обёртка, которая открывает у менеджера только запросы. Менеджер за ней нельзя получить приведением типа.
+ */
+public final class ReadOnlyTaskQuery implements TaskQuery {
+    private final TaskQuery delegate;
+
+    public ReadOnlyTaskQuery(TaskQuery delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return delegate.peekEpic(id);
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return delegate.peekSubtask(id);
+    }
+
+    @Override
+    public Task peekNormalTask(int id) {
+        return delegate.peekNormalTask(id);
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        return delegate.peekTask(id);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return delegate.getAllEpics();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return delegate.getAllSubtasks();
+    }
+
+    @Override
+    public List<Task> getAllNormalTasks() {
+        return delegate.getAllNormalTasks();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksForEpic(int epicId) {
+        return delegate.getSubtasksForEpic(epicId);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return delegate.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.getTasksBetween(from, to);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return delegate.findFreeSlot(duration, notBefore, notAfter);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status, TaskType type) {
+        return delegate.getTasksByStatus(status, type);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(String cursor, int limit) {
+        return delegate.getEpicsPage(cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(String cursor, int limit) {
+        return delegate.getSubtasksPage(cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Task> getNormalTasksPage(String cursor, int limit) {
+        return delegate.getNormalTasksPage(cursor, limit);
+    }
+
+    @Override
+    public TaskPage<Task> getPrioritizedTasksPage(String cursor, int limit) {
+        return delegate.getPrioritizedTasksPage(cursor, limit);
+    }
+}
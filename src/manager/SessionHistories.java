@@ -0,0 +1,166 @@
+package manager;
+
+import tasks.models.Task;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Истории просмотров, разделённые по сессиям клиентов. У каждой сессии своя небольшая
+ * {@link ConcurrentHistoryManager}, так что клиенты не мешают друг другу и не видят чужих просмотров,
+ * а параллельные запросы одной сессии не ждут друг друга.
+ * История хранит только id просмотренных задач, а сами задачи при чтении берутся из менеджера заново:
+ * удалённые пропадают, изменённые отдаются в текущем виде.
+ * Сессии, к которым долго не обращались, удаляются. Если сессий всё равно больше предела,
+ * удаляются самые давние, поэтому память ограничена при любом числе клиентов.
+ */
+public class SessionHistories {
+    public static final int DEFAULT_MAX_SESSIONS = 50_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final TaskQuery query;
+    private final int capacity;
+    private final int maxSessions;
+    private final long idleTimeout;
+    private final LongSupplier clock;
+    private volatile long lastSweep;
+
+    public SessionHistories(TaskQuery query) {
+        this(query, InMemoryHistoryManager.DEFAULT_CAPACITY, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param query       откуда история берёт задачи при чтении
+     * @param capacity    вместимость истории одной сессии
+     * @param maxSessions сколько сессий хранится одновременно
+     * @param idleTimeout через сколько после последнего обращения сессия удаляется
+     * @param clock       текущее время в миллисекундах
+     */
+    public SessionHistories(TaskQuery query, int capacity, int maxSessions, Duration idleTimeout, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Вместимость истории должна быть положительной: " + capacity);
+        }
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Число сессий должно быть положительным: " + maxSessions);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Время жизни сессии должно быть положительным: " + idleTimeout);
+        }
+
+        this.query = query;
+        this.capacity = capacity;
+        this.maxSessions = maxSessions;
+        this.idleTimeout = idleTimeout.toMillis();
+        this.clock = clock;
+        this.lastSweep = clock.getAsLong();
+    }
+
+    public void add(String sessionId, Task task) {
+        final long now = clock.getAsLong();
+        final Session session = sessions.computeIfAbsent(sessionId, key -> new Session(query, capacity, now));
+
+        session.add(task, now);
+
+        if (sessions.size() > maxSessions || now - lastSweep >= idleTimeout) {
+            sweep(now);
+        }
+    }
+
+    /**
+     * История сессии в порядке просмотра. Задачи, которых в менеджере уже нет, пропускаются.
+     * Чтение истории незнакомой сессии не заводит её.
+     */
+    public List<Task> getHistory(String sessionId) {
+        final Session session = sessions.get(sessionId);
+
+        return session == null ? List.of() : session.getHistory(clock.getAsLong());
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Удаляет простаивающие сессии, а при превышении предела - самые давние, оставляя запас в десятую часть,
+     * чтобы следующая новая сессия не запускала очистку снова. Очистку одновременно ведёт только один поток.
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastSweep = now;
+            sessions.entrySet().removeIf(entry -> now - entry.getValue().lastAccess >= idleTimeout);
+
+            if (sessions.size() <= maxSessions) {
+                return;
+            }
+
+            final int excess = sessions.size() - (maxSessions - maxSessions / 10);
+            final long[] accesses = new long[sessions.size()];
+            int count = 0;
+
+            for (Session session : sessions.values()) {
+                if (count == accesses.length) {
+                    break;
+                }
+                accesses[count++] = session.lastAccess;
+            }
+            Arrays.sort(accesses, 0, count);
+
+            // Сессии с тем же временем, что у последней вытесняемой, удаляются, только пока не набралось нужное число
+            final long threshold = accesses[Math.min(excess, count) - 1];
+            int removed = 0;
+
+            for (Iterator<Session> iterator = sessions.values().iterator(); iterator.hasNext() && removed < excess; ) {
+                final long lastAccess = iterator.next().lastAccess;
+
+                if (lastAccess < threshold) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            for (Iterator<Session> iterator = sessions.values().iterator(); iterator.hasNext() && removed < excess; ) {
+                if (iterator.next().lastAccess <= threshold) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class Session {
+        private final HistoryManager history;
+        private volatile long lastAccess;
+
+        Session(TaskQuery query, int capacity, long now) {
+            history = Managers.getConcurrentHistory(capacity, query::peekTask);
+            lastAccess = now;
+        }
+
+        void add(Task task, long now) {
+            history.add(task);
+            lastAccess = now;
+        }
+
+        List<Task> getHistory(long now) {
+            lastAccess = now;
+            return history.getHistory();
+        }
+    }
+}
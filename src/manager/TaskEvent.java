@@ -0,0 +1,62 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.models.Task;
+
+/**
+ * Изменение задачи. Номера событий одного менеджера строго возрастают и идут без пропусков,
+ * поэтому подписчик может заметить, что что-то пропустил, и продолжить с последнего обработанного номера.
+ */
+public class TaskEvent {
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STATUS_CHANGED
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final Task task;
+    private final TaskStatus previousStatus;
+
+    public TaskEvent(long sequence, Kind kind, Task task, TaskStatus previousStatus) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.task = task;
+        this.previousStatus = previousStatus;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Сама задача, а не копия: к моменту обработки события она может измениться снова.
+     * Для удалённой задачи - её последнее состояние.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Статус до изменения. Заполнен только у {@link Kind#STATUS_CHANGED}.
+     */
+    public TaskStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", kind=" + kind +
+                ", taskId=" + task.getId() +
+                ", previousStatus=" + previousStatus +
+                '}';
+    }
+}
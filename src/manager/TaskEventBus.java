@@ -0,0 +1,134 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.models.Task;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Очередь событий без блокировок.
+ * Публикация занимает номер события одним атомарным приращением и кладёт событие в ячейку кольцевого буфера
+ * с этим номером. Доставку ведёт тот поток, который первым вызвал {@link #dispatch()}: он раздаёт события
+ * подписчикам строго по порядку номеров, а остальные потоки не ждут его и возвращаются сразу.
+ * Если ячейка ещё занята недоставленным событием, новое уходит в список переполнения и ждёт того же
+ * {@link #dispatch()}: публикация никогда не раздаёт события сама, поэтому подписчики не вызываются посреди
+ * операции, сколько бы событий она ни породила.
+ */
+public class TaskEventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<TaskEvent> events;
+    // События, которым не хватило ячейки, по номеру ячейки
+    private final Map<Long, TaskEvent> overflow = new ConcurrentHashMap<>();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final List<TaskEventListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long head;
+
+    public TaskEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity размер буфера, округляется вверх до степени двойки
+     */
+    public TaskEventBus(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер очереди событий должен быть положительным: " + capacity);
+        }
+
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        events = new AtomicReferenceArray<>(size);
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public void addListener(TaskEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TaskEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Ставит событие в очередь, но не доставляет его: подписчики получат событие при следующем {@link #dispatch()}.
+     */
+    public void publish(TaskEvent.Kind kind, Task task, TaskStatus previousStatus) {
+        final long position = tail.getAndIncrement();
+        final int index = (int) (position & mask);
+        final TaskEvent event = new TaskEvent(position + 1, kind, task, previousStatus);
+
+        if (sequences.get(index) == position) {
+            events.set(index, event);
+            sequences.set(index, position + 1);
+        } else {
+            overflow.put(position, event);
+        }
+    }
+
+    /**
+     * Раздаёт подписчикам все опубликованные события. Если раздачу уже ведёт другой поток, он раздаст и их.
+     * Исключение подписчика не мешает остальным подписчикам и следующим событиям.
+     */
+    public void dispatch() {
+        while (dispatching.compareAndSet(false, true)) {
+            try {
+                for (TaskEvent event = poll(); event != null; event = poll()) {
+                    deliver(event);
+                }
+            } finally {
+                dispatching.set(false);
+            }
+
+            // Событие могли опубликовать между последней проверкой и снятием флага
+            if (sequences.get((int) (head & mask)) != head + 1 && !overflow.containsKey(head)) {
+                return;
+            }
+        }
+    }
+
+    private TaskEvent poll() {
+        final int index = (int) (head & mask);
+        final TaskEvent event;
+
+        if (sequences.get(index) == head + 1) {
+            event = events.get(index);
+            events.set(index, null);
+        } else {
+            event = overflow.remove(head);
+
+            if (event == null) {
+                return null;
+            }
+        }
+        // Ячейка освобождается и для события из переполнения: оно её так и не заняло
+        sequences.set(index, head + mask + 1);
+        head++;
+        return event;
+    }
+
+    private void deliver(TaskEvent event) {
+        for (TaskEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                System.out.println("Подписчик не обработал событие " + event + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package manager;
+
+public interface TaskEventListener {
+    void onEvent(TaskEvent event);
+}
@@ -4,10 +4,10 @@ import tasks.models.Epic;
 import tasks.models.Subtask;
 import tasks.models.Task;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.ArrayList;
 
-public interface TaskManager {
+public interface TaskManager extends TaskQuery {
     Task createEpic(Epic epic);
 
     Task createSubtask(Subtask subtask);
@@ -32,19 +32,17 @@ public interface TaskManager {
 
     void deleteNormalTask(int id);
 
-    Task findSubtaskById(int id);
-
-    Task findEpicById(int id);
+    List<Task> createAll(List<? extends Task> tasks);
 
-    Task findNormalTaskById(int id);
+    List<Task> updateAll(List<? extends Task> tasks);
 
-    List<Epic> getAllEpics();
+    void deleteAll(Collection<Integer> ids);
 
-    List<Subtask> getAllSubtasks();
+    Task findSubtaskById(int id);
 
-    List<Task> getAllNormalTasks();
+    Task findEpicById(int id);
 
-    List<Subtask> getSubtasksForEpic(int epicId);
+    Task findNormalTaskById(int id);
 
     Epic getEpic(int id);
 
@@ -52,9 +50,11 @@ public interface TaskManager {
 
     Task getNormalTask(int id);
 
-    List<Task> getHistory();
-
-    ArrayList<Task> getPrioritizedTasks();
+    /**
+     * Представление только для чтения: через него нельзя ничего изменить,
+     * а чтения не попадают в историю и не вызывают сохранение.
+     */
+    TaskQuery query();
 
     void getEpicTime(Epic epic);
 }
\ No newline at end of file
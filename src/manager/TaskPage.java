@@ -0,0 +1,30 @@
+package manager;
+
+import tasks.models.Task;
+
+import java.util.List;
+
+/**
+ * Страница списка задач. {@code nextCursor} передаётся в следующий запрос и равен null на последней странице.
+ */
+public class TaskPage<T extends Task> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public TaskPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
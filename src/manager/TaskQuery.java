@@ -0,0 +1,59 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
+import tasks.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Запросы, которые ничего не меняют: не пишут в историю и не вызывают сохранение.
+ * Методы peek* возвращают задачу по id или null, если её нет.
+ */
+public interface TaskQuery {
+    Epic peekEpic(int id);
+
+    Subtask peekSubtask(int id);
+
+    Task peekNormalTask(int id);
+
+    /**
+     * Задача любого типа по id.
+     */
+    Task peekTask(int id);
+
+    List<Epic> getAllEpics();
+
+    List<Subtask> getAllSubtasks();
+
+    List<Task> getAllNormalTasks();
+
+    List<Subtask> getSubtasksForEpic(int epicId);
+
+    List<Task> getHistory();
+
+    List<Task> getPrioritizedTasks();
+
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    LocalDateTime findFreeSlot(int duration, LocalDateTime notBefore, LocalDateTime notAfter);
+
+    List<Task> getTasksByStatus(TaskStatus status, TaskType type);
+
+    /**
+     * Полнотекстовый поиск по названию и описанию. Слово со звёздочкой на конце ищется по префиксу.
+     * Возвращает не больше limit задач, самые подходящие первыми.
+     */
+    List<Task> search(String query, int limit);
+
+    TaskPage<Epic> getEpicsPage(String cursor, int limit);
+
+    TaskPage<Subtask> getSubtasksPage(String cursor, int limit);
+
+    TaskPage<Task> getNormalTasksPage(String cursor, int limit);
+
+    TaskPage<Task> getPrioritizedTasksPage(String cursor, int limit);
+}
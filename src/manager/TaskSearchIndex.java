@@ -0,0 +1,300 @@
+package manager;
+
+import tasks.models.Task;
+import util.IntArraySet;
+import util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Обратный индекс по словам из названия и описания задач. Для каждого слова хранится список задач,
+ * в которых оно встречается, вместе с числом вхождений.
+ * Запрос - слова через пробел, задача должна содержать каждое из них. Слово со звёздочкой на конце
+ * ищется по префиксу: {@code отч*} найдёт и «отчёт», и «отчётность».
+ * Результаты упорядочены по суммарному числу вхождений, при равенстве - по id.
+ * Просматриваются только задачи самого редкого слова запроса, остальные слова проверяются по хеш-таблицам.
+ * Поэтому широкий префикс дорог, только если он - единственное или самое редкое слово запроса.
+ */
+public class TaskSearchIndex {
+    private static final char PREFIX_MARK = '*';
+    private static final int MERGE_FACTOR = 16;
+    private static final Comparator<Hit> BY_RELEVANCE = Comparator.comparingInt((Hit hit) -> hit.score).reversed()
+            .thenComparingInt(hit -> hit.task.getId());
+
+    private final NavigableMap<String, IntObjectMap<Integer>> postings = new TreeMap<>();
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    /**
+     * Индексирует задачу или переиндексирует её, если название или описание изменились.
+     * Повторный вызов для неизменённой задачи ничего не делает.
+     */
+    public synchronized void add(Task task) {
+        final Document previous = documents.get(task.getId());
+
+        if (previous != null && previous.task == task && Objects.equals(previous.name, task.getName())
+                && Objects.equals(previous.description, task.getDescription())) {
+            return;
+        }
+        remove(task.getId());
+
+        final Map<String, Integer> terms = new HashMap<>();
+
+        for (String term : tokenize(task.getName() + " " + task.getDescription())) {
+            terms.merge(term, 1, Integer::sum);
+        }
+        terms.forEach((term, count) -> postings.computeIfAbsent(term, key -> new IntObjectMap<>())
+                .put(task.getId(), count));
+        documents.put(task.getId(), new Document(task, task.getName(), task.getDescription(), terms.keySet()));
+    }
+
+    public synchronized void remove(int id) {
+        final Document document = documents.remove(id);
+
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            final IntObjectMap<Integer> posting = postings.get(term);
+
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    public synchronized void removeAll(IntArraySet ids) {
+        ids.forEach(this::remove);
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    /**
+     * Не больше limit самых подходящих задач. Пустой запрос ничего не находит.
+     */
+    public synchronized List<Task> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер выдачи должен быть положительным: " + limit);
+        }
+
+        final List<Word> words = new ArrayList<>();
+
+        for (String word : query.split("\\s+")) {
+            final boolean prefix = word.endsWith(String.valueOf(PREFIX_MARK));
+            final List<String> terms = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+
+            for (int i = 0; i < terms.size(); i++) {
+                final String term = terms.get(i);
+
+                // Префиксом считается только последний кусок слова перед звёздочкой: "кв-отч*" - это "кв" и "отч*"
+                if (prefix && i == terms.size() - 1) {
+                    words.add(new Word(postings.subMap(term, true, term + Character.MAX_VALUE, true).values()));
+                } else {
+                    final IntObjectMap<Integer> posting = postings.get(term);
+                    words.add(new Word(posting == null ? List.of() : List.of(posting)));
+                }
+            }
+        }
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        final Word rarest = words.stream()
+                .min(Comparator.comparingInt(word -> word.size))
+                .orElseThrow();
+
+        // Проверка кандидата по каждому списку широкого префикса обходится дороже, чем одно объединение списков
+        for (Word word : words) {
+            if (word != rarest && (long) rarest.size * word.postings.size() > MERGE_FACTOR * word.size) {
+                word.merge();
+            }
+        }
+
+        final PriorityQueue<Hit> top = new PriorityQueue<>(BY_RELEVANCE.reversed());
+
+        rarest.forEach((id, rarestCount) -> {
+            int score = rarestCount;
+
+            for (Word word : words) {
+                if (word == rarest) {
+                    continue;
+                }
+
+                final int count = word.count(id);
+
+                if (count == 0) {
+                    return;
+                }
+                score += count;
+            }
+            top.add(new Hit(documents.get(id).task, score));
+
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+
+        final List<Task> result = new ArrayList<>(top.size());
+        final List<Hit> hits = new ArrayList<>(top);
+
+        hits.sort(BY_RELEVANCE);
+        for (Hit hit : hits) {
+            result.add(hit.task);
+        }
+        return result;
+    }
+
+    /**
+     * Слова в нижнем регистре. Разделителем считается всё, кроме букв и цифр.
+     */
+    private static List<String> tokenize(String text) {
+        final List<String> terms = new ArrayList<>();
+
+        if (text == null) {
+            return terms;
+        }
+
+        final String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            final boolean letter = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+
+            if (letter && start == -1) {
+                start = i;
+            } else if (!letter && start != -1) {
+                terms.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Слово запроса: один список задач для обычного слова, все подходящие списки для префикса.
+     * Списки префикса при необходимости объединяются в отсортированные массивы id и числа вхождений.
+     */
+    private static final class Word {
+        final Collection<IntObjectMap<Integer>> postings;
+        final int size;
+        int[] ids;
+        int[] counts;
+
+        Word(Collection<IntObjectMap<Integer>> postings) {
+            int size = 0;
+
+            for (IntObjectMap<Integer> posting : postings) {
+                size += posting.size();
+            }
+            this.postings = postings;
+            this.size = size;
+        }
+
+        int count(int id) {
+            if (ids != null) {
+                final int index = Arrays.binarySearch(ids, id);
+                return index < 0 ? 0 : counts[index];
+            }
+
+            int count = 0;
+
+            for (IntObjectMap<Integer> posting : postings) {
+                final Integer occurrences = posting.get(id);
+
+                if (occurrences != null) {
+                    count += occurrences;
+                }
+            }
+            return count;
+        }
+
+        void forEach(IntIntConsumer action) {
+            if (postings.size() == 1) {
+                postings.iterator().next().forEach(action::accept);
+                return;
+            }
+            merge();
+            for (int i = 0; i < ids.length; i++) {
+                action.accept(ids[i], counts[i]);
+            }
+        }
+
+        /**
+         * Объединяет списки сортировкой пар (id, число вхождений), упакованных в long: без хеш-таблиц и упаковки чисел.
+         */
+        void merge() {
+            if (ids != null) {
+                return;
+            }
+
+            final long[] entries = new long[size];
+            final int[] length = new int[1];
+
+            for (IntObjectMap<Integer> posting : postings) {
+                posting.forEach((id, count) -> entries[length[0]++] = (long) id << 32 | count);
+            }
+            Arrays.sort(entries, 0, length[0]);
+
+            final int[] mergedIds = new int[length[0]];
+            final int[] mergedCounts = new int[length[0]];
+            int merged = -1;
+
+            for (int i = 0; i < length[0]; i++) {
+                final int id = (int) (entries[i] >>> 32);
+                final int count = (int) entries[i];
+
+                if (merged >= 0 && mergedIds[merged] == id) {
+                    mergedCounts[merged] += count;
+                } else {
+                    merged++;
+                    mergedIds[merged] = id;
+                    mergedCounts[merged] = count;
+                }
+            }
+            ids = Arrays.copyOf(mergedIds, merged + 1);
+            counts = Arrays.copyOf(mergedCounts, merged + 1);
+        }
+    }
+
+    private interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final class Document {
+        final Task task;
+        final String name;
+        final String description;
+        final Collection<String> terms;
+
+        Document(Task task, String name, String description, Collection<String> terms) {
+            this.task = task;
+            this.name = name;
+            this.description = description;
+            this.terms = terms;
+        }
+    }
+
+    private static final class Hit {
+        final Task task;
+        final int score;
+
+        Hit(Task task, int score) {
+            this.task = task;
+            this.score = score;
+        }
+    }
+}
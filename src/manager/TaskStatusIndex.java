@@ -0,0 +1,104 @@
+package manager;
+
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
+import tasks.models.Task;
+import util.IntArraySet;
+import util.IntObjectMap;
+import util.SnapshotSortedSet;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Вторичный индекс задач по типу и статусу. Каждая пара тип-статус хранит свои задачи в порядке id,
+ * поэтому выборка отдаётся готовым снимком без просмотра остальных задач.
+ * Индекс помнит, в какой корзине лежит задача, так что повторное добавление после смены статуса
+ * переносит её, а удаление не зависит от текущего статуса.
+ */
+public class TaskStatusIndex {
+    private final Map<TaskType, Map<TaskStatus, SnapshotSortedSet<Task>>> buckets = new EnumMap<>(TaskType.class);
+    private final IntObjectMap<Location> locations = new IntObjectMap<>();
+
+    public TaskStatusIndex() {
+        final Comparator<Task> byId = Comparator.comparingInt(Task::getId);
+
+        for (TaskType type : TaskType.values()) {
+            final Map<TaskStatus, SnapshotSortedSet<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new SnapshotSortedSet<>(byId));
+            }
+            buckets.put(type, byStatus);
+        }
+    }
+
+    /**
+     * Возвращает статус, под которым задача лежала в индексе до этого, или null, если её там не было.
+     */
+    public synchronized TaskStatus add(Task task) {
+        final TaskStatus previous = remove(task.getId());
+
+        if (task.getStatus() == null) {
+            return previous;
+        }
+
+        final SnapshotSortedSet<Task> bucket = buckets.get(typeOf(task)).get(task.getStatus());
+        bucket.add(task);
+        locations.put(task.getId(), new Location(bucket, task, task.getStatus()));
+        return previous;
+    }
+
+    public synchronized TaskStatus remove(int id) {
+        final Location location = locations.remove(id);
+
+        if (location == null) {
+            return null;
+        }
+        location.bucket.remove(location.task);
+        return location.status;
+    }
+
+    public synchronized void removeAll(IntArraySet ids) {
+        ids.forEach(this::remove);
+    }
+
+    public synchronized void clear(TaskType type) {
+        for (SnapshotSortedSet<Task> bucket : buckets.get(type).values()) {
+            for (Task task : bucket.snapshot()) {
+                locations.remove(task.getId());
+            }
+            bucket.clear();
+        }
+    }
+
+    public List<Task> get(TaskStatus status, TaskType type) {
+        return buckets.get(type).get(status).snapshot().asList();
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+        return TaskType.NORMAL;
+    }
+
+    private static final class Location {
+        final SnapshotSortedSet<Task> bucket;
+        final Task task;
+        final TaskStatus status;
+
+        Location(SnapshotSortedSet<Task> bucket, Task task, TaskStatus status) {
+            this.bucket = bucket;
+            this.task = task;
+            this.status = status;
+        }
+    }
+}
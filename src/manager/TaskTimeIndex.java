@@ -0,0 +1,143 @@
+package manager;
+
+import exceptions.VerificationException;
+import tasks.models.Task;
+import util.IntArraySet;
+import util.IntObjectMap;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Индекс занятых интервалов времени для проверки пересечений задач за O(log n).
+ * Интервалы считаются полуоткрытыми [start, end): задачи, которые стыкуются концом и началом, не пересекаются.
+ * Задачи без времени начала в индекс не попадают и ни с чем не пересекаются.
+ */
+public class TaskTimeIndex {
+    private final NavigableMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> points = new TreeMap<>();
+    private final IntObjectMap<Slot> slots = new IntObjectMap<>();
+
+    public synchronized void add(Task task) throws VerificationException {
+        final int id = task.getId();
+        final Slot previous = detach(id);
+
+        if (task.getStartTime() == null) {
+            return;
+        }
+
+        final Slot slot = new Slot(task.getStartTime(), task.getEndTime());
+
+        if (overlaps(slot.start, slot.end)) {
+            if (previous != null) {
+                put(id, previous);
+            }
+            throw new VerificationException("Задача пересекается по времени с уже существующей");
+        }
+        put(id, slot);
+    }
+
+    public synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> before = intervals.lowerEntry(end);
+
+        if (before != null && before.getValue().isAfter(start)) {
+            return true;
+        }
+
+        LocalDateTime point = points.higherKey(start);
+
+        return point != null && point.isBefore(end);
+    }
+
+    /**
+     * Самое раннее время начала не раньше notBefore, с которого задача длиной duration минут ни с чем не пересекается
+     * и заканчивается не позже notAfter. Переходит от промежутка к промежутку, поэтому работает за O(log n) на
+     * каждую встреченную задачу. Возвращает null, если до notAfter места нет; notAfter == null снимает ограничение.
+     * Если интервал выходит за пределы {@link LocalDateTime}, бросает {@link java.time.DateTimeException}.
+     */
+    public synchronized LocalDateTime findFreeSlot(int duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        LocalDateTime start = notBefore;
+
+        while (true) {
+            final LocalDateTime end = start.plusMinutes(duration);
+
+            if (notAfter != null && end.isAfter(notAfter)) {
+                return null;
+            }
+
+            final Map.Entry<LocalDateTime, LocalDateTime> covering = intervals.lowerEntry(start);
+
+            if (covering != null && covering.getValue().isAfter(start)) {
+                start = covering.getValue();
+                continue;
+            }
+
+            final Map.Entry<LocalDateTime, LocalDateTime> next = intervals.ceilingEntry(start);
+
+            if (next != null && next.getKey().isBefore(end)) {
+                start = next.getValue();
+                continue;
+            }
+
+            final LocalDateTime point = points.higherKey(start);
+
+            if (point != null && point.isBefore(end)) {
+                start = point;
+                continue;
+            }
+            return start;
+        }
+    }
+
+    public synchronized void remove(int id) {
+        detach(id);
+    }
+
+    public synchronized void removeAll(IntArraySet ids) {
+        ids.forEach(this::detach);
+    }
+
+    public synchronized void clear() {
+        intervals.clear();
+        points.clear();
+        slots.clear();
+    }
+
+    private Slot detach(int id) {
+        final Slot slot = slots.remove(id);
+
+        if (slot != null) {
+            if (slot.isPoint()) {
+                points.computeIfPresent(slot.start, (time, count) -> count > 1 ? count - 1 : null);
+            } else {
+                intervals.remove(slot.start);
+            }
+        }
+        return slot;
+    }
+
+    private void put(int id, Slot slot) {
+        if (slot.isPoint()) {
+            points.merge(slot.start, 1, Integer::sum);
+        } else {
+            intervals.put(slot.start, slot.end);
+        }
+        slots.put(id, slot);
+    }
+
+    private static class Slot {
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Slot(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isPoint() {
+            return !end.isAfter(start);
+        }
+    }
+}
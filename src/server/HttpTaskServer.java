@@ -3,8 +3,11 @@ package server;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import manager.ConcurrentTaskManager;
 import manager.Managers;
+import manager.SessionHistories;
 import manager.TaskManager;
+import manager.TaskPage;
 import tasks.models.Epic;
 import tasks.models.Subtask;
 import tasks.models.Task;
@@ -13,7 +16,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
 import java.util.regex.Pattern;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -21,13 +34,28 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class HttpTaskServer {
 
     public static final int PORT = 5000;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /**
+     * Заголовок с ключом сессии клиента. Просмотры с ним попадают в историю этой сессии,
+     * запросы без него работают с общей историей менеджера, как раньше.
+     */
+    public static final String SESSION_HEADER = "X-Session-Id";
 
     private final HttpServer server;
     private final Gson gson;
     private final TaskManager taskManager;
+    private final SessionHistories sessionHistories;
+    private final ExecutorService executor;
 
     public HttpTaskServer() throws IOException, InterruptedException {
-        taskManager = Managers.getDefault();
+        this(Managers.getDefault());
+    }
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this.taskManager = taskManager instanceof ConcurrentTaskManager
+                ? taskManager
+                : new ConcurrentTaskManager(taskManager);
+        sessionHistories = new SessionHistories(this.taskManager.query());
         gson = Managers.getGson();
         server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
         server.createContext("/tasks", this::handleTask);
@@ -36,6 +64,10 @@ public class HttpTaskServer {
         server.createContext("/epics/subtasks", this::handleSubtaskByEpicId);
         server.createContext("/history", this::handleHistory);
         server.createContext("/prioritized", this::handlePrioritizedTasks);
+        server.createContext("/slots", this::handleFreeSlot);
+        server.createContext("/search", this::handleSearch);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
     }
 
     private void handlePrioritizedTasks(HttpExchange h) {
@@ -45,7 +77,7 @@ public class HttpTaskServer {
 
             switch (requestMethod) {
                 case "GET":
-                    getPrioritizedTasks(h, path);
+                    getPrioritizedTasks(h, path, h.getRequestURI().getQuery());
                     break;
                 case "DELETE":
                     deletePrioritizedTasks(h, path);
@@ -62,8 +94,18 @@ public class HttpTaskServer {
         }
     }
 
-    private void getPrioritizedTasks(HttpExchange h, String path) throws IOException {
+    private void getPrioritizedTasks(HttpExchange h, String path, String query) throws IOException {
         if (Pattern.matches("^/prioritized$", path)) {
+            Map<String, String> params = parseQuery(query);
+
+            if (params.containsKey("from") || params.containsKey("to")) {
+                sendWindow(h, params);
+                return;
+            }
+            if (isPageRequest(query)) {
+                sendPage(h, query, taskManager::getPrioritizedTasksPage);
+                return;
+            }
             String response = gson.toJson(taskManager.getPrioritizedTasks());
             sendText(h, response);
         }
@@ -83,11 +125,15 @@ public class HttpTaskServer {
 
             switch (method) {
                 case "GET":
+                    if (isPageRequest(query)) {
+                        sendPage(h, query, taskManager::getNormalTasksPage);
+                        break;
+                    }
                     if (query != null) {
                         String queryId = query.substring(3);
                         int id = parsePathId(queryId);
                         if (id != -1) {
-                            String response = gson.toJson(taskManager.getNormalTask(id));
+                            String response = gson.toJson(view(h, id, taskManager::getNormalTask, taskManager.query()::peekNormalTask));
                             sendText(h, response);
                             break;
                         } else {
@@ -155,11 +201,15 @@ public class HttpTaskServer {
 
             switch (method) {
                 case "GET":
+                    if (isPageRequest(query)) {
+                        sendPage(h, query, taskManager::getEpicsPage);
+                        break;
+                    }
                     if (query != null) {
                         String queryId = query.substring(3);
                         int id = parsePathId(queryId);
                         if (id != -1) {
-                            String response = gson.toJson(taskManager.getEpic(id));
+                            String response = gson.toJson(view(h, id, taskManager::getEpic, taskManager.query()::peekEpic));
                             sendText(h, response);
                             break;
                         } else {
@@ -226,11 +276,15 @@ public class HttpTaskServer {
 
             switch (method) {
                 case "GET":
+                    if (isPageRequest(query)) {
+                        sendPage(h, query, taskManager::getSubtasksPage);
+                        break;
+                    }
                     if (query != null) {
                         String queryId = query.substring(3);
                         int id = parsePathId(queryId);
                         if (id != -1) {
-                            String response = gson.toJson(taskManager.getSubtask(id));
+                            String response = gson.toJson(view(h, id, taskManager::getSubtask, taskManager.query()::peekSubtask));
                             sendText(h, response);
                             break;
                         } else {
@@ -312,11 +366,115 @@ public class HttpTaskServer {
 
     private void getHistory(HttpExchange h, String path) throws IOException {
         if (Pattern.matches("/history", path)) {
-            String response = gson.toJson(taskManager.getHistory());
+            String sessionId = sessionId(h);
+            List<Task> history = sessionId == null
+                    ? taskManager.getHistory()
+                    : sessionHistories.getHistory(sessionId);
+            String response = gson.toJson(history);
             sendText(h, response);
         }
     }
 
+    /**
+     * Задача по id для ответа клиенту. Без сессии это обычное чтение с записью в общую историю.
+     * С сессией задача читается без эксклюзивной блокировки менеджера и записывается только в историю сессии.
+     */
+    private <T extends Task> T view(HttpExchange h, int id, IntFunction<T> getter, IntFunction<T> peek) {
+        String sessionId = sessionId(h);
+
+        if (sessionId == null) {
+            return getter.apply(id);
+        }
+
+        T task = peek.apply(id);
+
+        if (task != null) {
+            sessionHistories.add(sessionId, task);
+        }
+        return task;
+    }
+
+    private String sessionId(HttpExchange h) {
+        String sessionId = h.getRequestHeaders().getFirst(SESSION_HEADER);
+        return sessionId == null || sessionId.isBlank() ? null : sessionId;
+    }
+
+    private void handleFreeSlot(HttpExchange h) {
+        try {
+            String method = h.getRequestMethod();
+
+            switch (method) {
+                case "GET":
+                    getFreeSlot(h, parseQuery(h.getRequestURI().getQuery()));
+                    break;
+                default:
+                    System.out.println("Ожидается GET запрос, получен неккоректный запрос " + method);
+                    h.sendResponseHeaders(405, 0);
+            }
+        } catch (Exception e) {
+            e.getStackTrace();
+        } finally {
+            h.close();
+        }
+    }
+
+    private void getFreeSlot(HttpExchange h, Map<String, String> params) throws IOException {
+        try {
+            int duration = Integer.parseInt(params.get("duration"));
+            LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : LocalDateTime.now();
+            LocalDateTime to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+            LocalDateTime slot = taskManager.findFreeSlot(duration, from, to);
+
+            if (slot != null) {
+                sendText(h, gson.toJson(slot));
+            } else {
+                System.out.println("Свободного интервала длиной " + duration + " мин. не найдено");
+                h.sendResponseHeaders(404, 0);
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // DateTimeException - и ошибка разбора дат, и интервал за пределами представимого времени
+            System.out.println("Получены некорректные параметры поиска интервала - " + params);
+            h.sendResponseHeaders(400, 0);
+        }
+    }
+
+    private void handleSearch(HttpExchange h) {
+        try {
+            String method = h.getRequestMethod();
+
+            switch (method) {
+                case "GET":
+                    search(h, parseQuery(h.getRequestURI().getQuery()));
+                    break;
+                default:
+                    System.out.println("Ожидается GET запрос, получен неккоректный запрос " + method);
+                    h.sendResponseHeaders(405, 0);
+            }
+        } catch (Exception e) {
+            e.getStackTrace();
+        } finally {
+            h.close();
+        }
+    }
+
+    private void search(HttpExchange h, Map<String, String> params) throws IOException {
+        String query = params.get("q");
+
+        if (query == null || query.isBlank()) {
+            System.out.println("Не указан поисковый запрос q");
+            h.sendResponseHeaders(400, 0);
+            return;
+        }
+
+        try {
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+            sendText(h, gson.toJson(taskManager.search(query, limit)));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Получены некорректные параметры поиска - " + params);
+            h.sendResponseHeaders(400, 0);
+        }
+    }
+
     private void handleSubtaskByEpicId(HttpExchange h) {
         try {
             String method = h.getRequestMethod();
@@ -359,7 +517,11 @@ public class HttpTaskServer {
             String queryId = query.substring(3);
             int id = parsePathId(queryId);
             if (id != -1) {
-                taskManager.getEpic(id).deleteAllSubtaskIds();
+                List<Integer> subtaskIds = new ArrayList<>();
+                for (Subtask subtask : taskManager.getSubtasksForEpic(id)) {
+                    subtaskIds.add(subtask.getId());
+                }
+                taskManager.deleteAll(subtaskIds);
                 System.out.println("Удалили все SUBTASK у EPIC под идентификатором - " + id);
                 h.sendResponseHeaders(200, 0);
             } else {
@@ -379,6 +541,7 @@ public class HttpTaskServer {
     public void stop() {
         System.out.println("Остановили сервер на порту " + PORT);
         server.stop(0);
+        executor.shutdownNow();
     }
 
     protected void sendText(HttpExchange h, String text) throws IOException {
@@ -388,6 +551,53 @@ public class HttpTaskServer {
         h.getResponseBody().write(resp);
     }
 
+    private boolean isPageRequest(String query) {
+        Map<String, String> params = parseQuery(query);
+        return params.containsKey("limit") || params.containsKey("cursor");
+    }
+
+    private <T extends Task> void sendPage(HttpExchange h, String query,
+                                           BiFunction<String, Integer, TaskPage<T>> pager) throws IOException {
+        Map<String, String> params = parseQuery(query);
+
+        try {
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+            TaskPage<T> page = pager.apply(params.get("cursor"), limit);
+            sendText(h, gson.toJson(page));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Получены некорректные параметры страницы - " + query);
+            h.sendResponseHeaders(400, 0);
+        }
+    }
+
+    private void sendWindow(HttpExchange h, Map<String, String> params) throws IOException {
+        try {
+            LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+            LocalDateTime to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+            sendText(h, gson.toJson(taskManager.getTasksBetween(from, to)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println("Получены некорректные границы интервала - " + params);
+            h.sendResponseHeaders(400, 0);
+        }
+    }
+
+    private Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+
+            if (separator > 0) {
+                params.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return params;
+    }
+
     private int parsePathId(String path) {
         try {
             return Integer.parseInt(path);
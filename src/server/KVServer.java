@@ -17,6 +17,7 @@ public class KVServer {
     private final String apiToken;
     private final HttpServer server;
     private final Map<String, String> data = new HashMap<>();
+    private final Map<String, Long> leases = new HashMap<>();
 
     public KVServer() throws IOException {
         apiToken = generateApiToken();
@@ -24,6 +25,62 @@ public class KVServer {
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/lease", this::lease);
+    }
+
+    /**
+     * Выдаёт блок из count ещё не выданных id и возвращает первый из них. Счётчики хранятся отдельно от значений
+     * /save, поэтому запись клиента с тем же ключом не может сбросить счётчик и повторить уже выданные id.
+     * Параметр after сдвигает счётчик за уже занятые id.
+     * Сервер обрабатывает запросы в одном потоке, поэтому каждый блок выдаётся только один раз.
+     */
+    private void lease(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/lease");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                String key = h.getRequestURI().getPath().substring("/lease/".length());
+                if (key.isEmpty()) {
+                    System.out.println("Key для аренды пустой. key указывается в пути: /lease/{key}");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                long first;
+                try {
+                    Map<String, String> parameters = queryParameters(h);
+                    long count = Long.parseLong(parameters.getOrDefault("count", "1"));
+                    long after = Long.parseLong(parameters.getOrDefault("after", "0"));
+
+                    if (count < 1 || after < 0) {
+                        System.out.println("Размер блока должен быть положительным, а граница неотрицательной: "
+                                + count + ", " + after);
+                        h.sendResponseHeaders(400, 0);
+                        return;
+                    }
+                    first = Math.max(leases.getOrDefault(key, 1L), Math.addExact(after, 1));
+                    leases.put(key, Math.addExact(first, count));
+                } catch (NumberFormatException e) {
+                    System.out.println("Параметры аренды не являются числом: " + e.getMessage());
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                } catch (ArithmeticException e) {
+                    System.out.println("Счётчик для ключа " + key + " переполнен");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                System.out.println("Для ключа " + key + " выдан блок, начиная с " + first);
+                sendText(h, Long.toString(first));
+            } else {
+                System.out.println("/lease ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+            }
+        } finally {
+            h.close();
+        }
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -122,6 +179,22 @@ public class KVServer {
         return rawQuery != null && (rawQuery.contains("API_TOKEN=" + apiToken) || rawQuery.contains("API_TOKEN=DEBUG"));
     }
 
+    protected Map<String, String> queryParameters(HttpExchange h) {
+        Map<String, String> parameters = new HashMap<>();
+        String rawQuery = h.getRequestURI().getRawQuery();
+
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int separator = parameter.indexOf('=');
+
+                if (separator > 0) {
+                    parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
     protected String readText(HttpExchange h) throws IOException {
         return new String(h.getRequestBody().readAllBytes(), UTF_8);
     }
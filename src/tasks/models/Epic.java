@@ -3,27 +3,42 @@ package tasks.models;
 import tasks.enums.TaskStatus;
 import tasks.enums.TaskType;
 
+import util.IntArraySet;
+import util.IntObjectMap;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.time.LocalDateTime;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private List<Integer> subtaskIds;
+    private IntArraySet subtaskIds;
     private LocalDateTime endTime;
+    private transient int newSubtasks;
+    private transient int inProgressSubtasks;
+    private transient int doneSubtasks;
+    private transient NavigableMap<LocalDateTime, Integer> subtaskStarts = new TreeMap<>();
+    private transient NavigableMap<LocalDateTime, Integer> subtaskEnds = new TreeMap<>();
+    private transient int subtasksDuration;
+    // Что учтено в счётчиках по каждой подзадаче: подзадачу могли изменить на месте до обновления
+    private transient IntObjectMap<Counted> counted = new IntObjectMap<>();
 
     public Epic(int id, String name, String description, TaskStatus status) {
         super(id, name, description, TaskType.EPIC, status);
-        subtaskIds = new ArrayList<>();
+        subtaskIds = new IntArraySet();
     }
 
     public Epic(String name, String description, TaskStatus status) {
         super(0, name, description, TaskType.EPIC, status);
-        subtaskIds = new ArrayList<>();
+        subtaskIds = new IntArraySet();
     }
 
     public Epic(int id, String name, String description, TaskStatus status, int duration, LocalDateTime startTime) {
         super(id, name, description, TaskType.EPIC, status, duration, startTime);
-        subtaskIds = new ArrayList<>();
+        subtaskIds = new IntArraySet();
         this.endTime = startTime;
     }
 
@@ -38,27 +53,172 @@ public class Epic extends Task {
     }
 
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        List<Integer> ids = new ArrayList<>(subtaskIds().size());
+
+        subtaskIds().forEach(ids::add);
+        return Collections.unmodifiableList(ids);
     }
 
-    public void setDuration(int duration) {
-        this.duration = duration;
+    public int getSubtaskCount() {
+        return subtaskIds().size();
     }
 
-    public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+    public boolean hasSubtask(int subtaskId) {
+        return subtaskIds().contains(subtaskId);
     }
 
-    public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds().forEach(action);
+    }
+
+    public String subtaskIdsToString() {
+        return subtaskIds().toString();
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
     }
 
     public void deleteAllSubtaskIds() {
-        subtaskIds.clear();
+        subtaskIds().clear();
+        newSubtasks = 0;
+        inProgressSubtasks = 0;
+        doneSubtasks = 0;
+        subtaskStarts = new TreeMap<>();
+        subtaskEnds = new TreeMap<>();
+        subtasksDuration = 0;
+        counted = new IntObjectMap<>();
+        refreshStatus();
+        clearTime();
     }
 
     public void addSubtaskId(int subtaskId) {
-        subtaskIds.add(subtaskId);
+        subtaskIds().add(subtaskId);
+    }
+
+    public void addSubtask(Subtask subtask) {
+        subtaskIds().add(subtask.getId());
+        countSubtask(subtask);
+        refreshStatus();
+        refreshTime();
+    }
+
+    public void removeSubtask(Subtask subtask) {
+        if (subtaskIds().remove(subtask.getId())) {
+            uncountSubtask(subtask.getId());
+            refreshStatus();
+
+            if (subtaskIds().isEmpty()) {
+                clearTime();
+            } else {
+                refreshTime();
+            }
+        }
+    }
+
+    /**
+     * Пересчитывает эпик по новой версии подзадачи. Прежняя версия берётся из того, что эпик учёл раньше,
+     * поэтому подходит и сама хранимая подзадача, изменённая на месте.
+     */
+    public void replaceSubtask(Subtask subtask) {
+        uncountSubtask(subtask.getId());
+        countSubtask(subtask);
+        refreshStatus();
+        refreshTime();
+    }
+
+    public void restoreSubtasks(List<Subtask> subtasks) {
+        newSubtasks = 0;
+        inProgressSubtasks = 0;
+        doneSubtasks = 0;
+        subtaskStarts = new TreeMap<>();
+        subtaskEnds = new TreeMap<>();
+        subtasksDuration = 0;
+        counted = new IntObjectMap<>();
+
+        for (Subtask subtask : subtasks) {
+            countSubtask(subtask);
+        }
+        refreshStatus();
+        refreshTime();
+    }
+
+    private void countSubtask(Subtask subtask) {
+        final Counted version = new Counted(subtask);
+
+        counted().put(subtask.getId(), version);
+        count(version, 1);
+    }
+
+    private void uncountSubtask(int subtaskId) {
+        final Counted version = counted().remove(subtaskId);
+
+        if (version != null) {
+            count(version, -1);
+        }
+    }
+
+    private void count(Counted version, int delta) {
+        switch (version.status) {
+            case NEW:
+                newSubtasks += delta;
+                break;
+            case IN_PROGRESS:
+                inProgressSubtasks += delta;
+                break;
+            case DONE:
+                doneSubtasks += delta;
+                break;
+        }
+
+        if (version.startTime != null) {
+            countTime(subtaskStarts, version.startTime, delta);
+            countTime(subtaskEnds, version.endTime, delta);
+            subtasksDuration += delta * version.duration;
+        }
+    }
+
+    private static void countTime(NavigableMap<LocalDateTime, Integer> times, LocalDateTime time, int delta) {
+        times.merge(time, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    private void refreshTime() {
+        if (subtaskIds().isEmpty()) {
+            return;
+        }
+        startTime = subtaskStarts.isEmpty() ? null : subtaskStarts.firstKey();
+        endTime = subtaskEnds.isEmpty() ? null : subtaskEnds.lastKey();
+        duration = subtasksDuration;
+    }
+
+    private IntArraySet subtaskIds() {
+        if (subtaskIds == null) {
+            subtaskIds = new IntArraySet();
+        }
+        return subtaskIds;
+    }
+
+    private IntObjectMap<Counted> counted() {
+        if (counted == null) {
+            counted = new IntObjectMap<>();
+        }
+        return counted;
+    }
+
+    private void clearTime() {
+        startTime = null;
+        endTime = null;
+        duration = 0;
+    }
+
+    private void refreshStatus() {
+        if (inProgressSubtasks == 0 && doneSubtasks == 0) {
+            setStatus(TaskStatus.NEW);
+        } else if (inProgressSubtasks == 0 && newSubtasks == 0) {
+            setStatus(TaskStatus.DONE);
+        } else {
+            setStatus(TaskStatus.IN_PROGRESS);
+        }
     }
 
     public String getName() {
@@ -68,4 +228,18 @@ public class Epic extends Task {
     public String getDescription() {
         return super.getDescription();
     }
-}
\ No newline at end of file
+
+    private static final class Counted {
+        final TaskStatus status;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        final int duration;
+
+        Counted(Subtask subtask) {
+            status = subtask.getStatus();
+            startTime = subtask.getStartTime();
+            endTime = subtask.getEndTime();
+            duration = subtask.getDuration();
+        }
+    }
+}
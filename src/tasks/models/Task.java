@@ -58,6 +58,14 @@ public class Task {
         return duration;
     }
 
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
     public LocalDateTime getEndTime() {
         if (startTime != null) {
             return startTime.plusMinutes(duration);
@@ -0,0 +1,318 @@
+package tests;
+
+import manager.ConcurrentHistoryManager;
+import manager.InMemoryHistoryManager;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Task;
+import util.IntArraySet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    private static final int CAPACITY = 10;
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final int ADDS_PER_WRITER = 100_000;
+    private static final int WRITER_ID_RANGE = 1_000_000;
+
+    @Test
+    void shouldMatchSequentialHistoryUnderRandomOperations() {
+        for (long seed = 0; seed < 20; seed++) {
+            final Random random = new Random(seed);
+            final ConcurrentHistoryManager history = new ConcurrentHistoryManager(CAPACITY);
+            final InMemoryHistoryManager model = new InMemoryHistoryManager(CAPACITY);
+            final Map<Integer, Task> tasks = new HashMap<>();
+
+            for (int step = 0; step < 2_000; step++) {
+                final int id = random.nextInt(30) + 1;
+                final Task task = tasks.computeIfAbsent(id, key -> key % 3 == 0
+                        ? new Epic(key, "Epic " + key, "Description", TaskStatus.NEW)
+                        : new Task(key, "Task " + key, "Description", TaskType.NORMAL, TaskStatus.NEW));
+                final int operation = random.nextInt(20);
+
+                if (operation == 0) {
+                    history.removeAllTasksOfType(Epic.class);
+                    model.removeAllTasksOfType(Epic.class);
+                } else if (operation == 1) {
+                    final IntArraySet ids = new IntArraySet();
+
+                    ids.add(id);
+                    ids.add(random.nextInt(30) + 1);
+                    history.removeAll(ids);
+                    model.removeAll(ids);
+                } else if (operation < 5) {
+                    history.remove(id);
+                    model.remove(id);
+                } else {
+                    history.add(task);
+                    model.add(task);
+                }
+                assertEquals(model.getHistory(), history.getHistory(), "История расходится с моделью, seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepRarelyViewedTaskWhileHistoryIsNotFull() {
+        final ConcurrentHistoryManager history = new ConcurrentHistoryManager(CAPACITY);
+        final Task rare = new Task(1, "Rare", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final Task frequent = new Task(2, "Frequent", "Description", TaskType.NORMAL, TaskStatus.NEW);
+
+        history.add(rare);
+
+        for (int i = 0; i < 10_000; i++) {
+            history.add(frequent);
+        }
+
+        assertEquals(List.of(rare, frequent), history.getHistory(), "Задача вытеснена при неполной истории");
+
+        history.remove(frequent.getId());
+
+        for (int i = 0; i < 10_000; i++) {
+            history.add(frequent);
+            history.remove(frequent.getId());
+        }
+
+        assertEquals(List.of(rare), history.getHistory(), "Удаления вытеснили задачу из истории");
+    }
+
+    @Test
+    void shouldRejectCapacityBeyondJournalLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentHistoryManager(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Просмотр C вклинивается в удаление B: набор id удаляемых задач сам смотрит C при первой проверке.
+     * Читатель после просмотра видит [B, C], значит A уже вытеснена и удаление B должно оставить [C].
+     */
+    @Test
+    void shouldNotReturnEvictedTaskWhenAddInterleavesWithRemoval() {
+        final ConcurrentHistoryManager history = new ConcurrentHistoryManager(2);
+        final Task a = new Task(1, "A", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final Task b = new Task(2, "B", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final Task c = new Task(3, "C", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final List<List<Task>> seenAfterAdd = new ArrayList<>();
+        final IntArraySet ids = new IntArraySet() {
+            @Override
+            public boolean contains(int value) {
+                if (seenAfterAdd.isEmpty()) {
+                    history.add(c);
+                    seenAfterAdd.add(history.getHistory());
+                }
+                return super.contains(value);
+            }
+        };
+
+        history.add(a);
+        history.add(b);
+        ids.add(b.getId());
+        history.removeAll(ids);
+
+        assertEquals(List.of(List.of(b, c)), seenAfterAdd, "Просмотр не вклинился в удаление");
+        assertEquals(List.of(c), history.getHistory(), "Вытесненная задача вернулась в историю");
+    }
+
+    /**
+     * История [A, B] вместимостью 2, затем одновременно удаляется B и смотрится C. Линеаризуемых исходов два:
+     * удаление раньше просмотра даёт [A, C], позже - [C]. Если читатель уже видел A вытесненной, она не должна
+     * вернуться, а итогом тогда может быть только [C].
+     */
+    @Test
+    void shouldNotReturnEvictedTaskWhenRemovalRacesWithAdd() throws Exception {
+        final Task a = new Task(1, "A", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final Task b = new Task(2, "B", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final Task c = new Task(3, "C", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                final ConcurrentHistoryManager history = new ConcurrentHistoryManager(2);
+                final CountDownLatch ready = new CountDownLatch(1);
+                final AtomicBoolean writing = new AtomicBoolean(true);
+
+                history.add(a);
+                history.add(b);
+
+                final Future<?> remover = executor.submit(() -> {
+                    ready.await();
+                    history.remove(b.getId());
+                    return null;
+                });
+                final Future<?> adder = executor.submit(() -> {
+                    ready.await();
+                    history.add(c);
+                    return null;
+                });
+                final Future<Boolean> reader = executor.submit(() -> {
+                    ready.await();
+                    boolean evicted = false;
+
+                    while (writing.get()) {
+                        final boolean present = history.getHistory().contains(a);
+
+                        if (evicted && present) {
+                            throw new AssertionError("Вытесненная задача вернулась в историю");
+                        }
+                        evicted |= !present;
+                    }
+                    return evicted;
+                });
+
+                ready.countDown();
+                remover.get(10, TimeUnit.SECONDS);
+                adder.get(10, TimeUnit.SECONDS);
+                writing.set(false);
+
+                final boolean evicted = reader.get(10, TimeUnit.SECONDS);
+                final List<Task> finalHistory = history.getHistory();
+
+                assertTrue(finalHistory.equals(List.of(c)) || finalHistory.equals(List.of(a, c)),
+                        "Нелинеаризуемый итог " + finalHistory + ", раунд " + round);
+                if (evicted) {
+                    assertEquals(List.of(c), finalHistory, "Вытесненная задача вернулась, раунд " + round);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepHistoryConsistentUnderConcurrentAdds() throws Exception {
+        runConcurrentAdds();
+    }
+
+    /**
+     * Замер пропускной способности: на загруженной машине время непредсказуемо, поэтому запускается вручную.
+     */
+    @Test
+    @Disabled("Замер производительности, запускается вручную")
+    void measureConcurrentAddThroughput() throws Exception {
+        final long elapsed = runConcurrentAdds();
+
+        System.out.printf("История: %.1f млн добавлений в секунду из %d потоков при %d читателях%n",
+                WRITERS * (double) ADDS_PER_WRITER * 1_000 / elapsed, WRITERS, READERS);
+    }
+
+    /**
+     * Каждый писатель смотрит свои задачи по возрастанию id, читатели всё это время проверяют снимки истории.
+     * Возвращает время записи в наносекундах.
+     */
+    private static long runConcurrentAdds() throws Exception {
+        final ConcurrentHistoryManager history = new ConcurrentHistoryManager(CAPACITY);
+        final ConcurrentLinkedQueue<String> readerErrors = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final CountDownLatch ready = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        final List<Future<?>> writers = new ArrayList<>();
+        final Task[][] tasks = new Task[WRITERS][ADDS_PER_WRITER];
+
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                final int id = w * WRITER_ID_RANGE + i + 1;
+                tasks[w][i] = new Task(id, "Task", "Description", TaskType.NORMAL, TaskStatus.NEW);
+            }
+        }
+
+        for (int w = 0; w < WRITERS; w++) {
+            final Task[] own = tasks[w];
+
+            writers.add(executor.submit(() -> {
+                ready.await();
+
+                for (Task task : own) {
+                    history.add(task);
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (writing.get()) {
+                    final String error = checkSnapshot(history.getHistory());
+
+                    if (error != null) {
+                        readerErrors.add(error);
+                    }
+                }
+            });
+        }
+
+        final long start = System.nanoTime();
+        ready.countDown();
+
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        writing.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Читатели не завершились");
+
+        final List<Task> finalHistory = history.getHistory();
+
+        assertTrue(readerErrors.isEmpty(), "Читатель увидел несогласованную историю: " + readerErrors.peek());
+        assertEquals(CAPACITY, finalHistory.size(), "История не заполнена");
+        assertNull(checkSnapshot(finalHistory), "Итоговая история несогласована");
+
+        for (Task task : finalHistory) {
+            final int writer = (task.getId() - 1) / WRITER_ID_RANGE;
+            final List<Task> fromWriter = new ArrayList<>();
+
+            for (Task other : finalHistory) {
+                if ((other.getId() - 1) / WRITER_ID_RANGE == writer) {
+                    fromWriter.add(other);
+                }
+            }
+            assertEquals(tasks[writer][ADDS_PER_WRITER - 1], fromWriter.get(fromWriter.size() - 1),
+                    "Последний просмотр потока потерялся");
+        }
+        return elapsed;
+    }
+
+    /**
+     * Каждый поток смотрит свои задачи по возрастанию id, поэтому в любом линеаризуемом снимке задачи потока
+     * идут подряд без пропусков и по возрастанию, а всего задач не больше вместимости.
+     */
+    private static String checkSnapshot(List<Task> snapshot) {
+        if (snapshot.size() > CAPACITY) {
+            return "размер " + snapshot.size();
+        }
+
+        final Map<Integer, Integer> lastByWriter = new HashMap<>();
+
+        for (Task task : snapshot) {
+            final int writer = (task.getId() - 1) / WRITER_ID_RANGE;
+            final Integer previous = lastByWriter.put(writer, task.getId());
+
+            if (previous != null && previous + 1 != task.getId()) {
+                return "после " + previous + " идёт " + task.getId() + " в " + snapshot;
+            }
+        }
+        return null;
+    }
+
+}
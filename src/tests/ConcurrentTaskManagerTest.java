@@ -0,0 +1,136 @@
+package tests;
+
+import manager.ConcurrentTaskManager;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
+import tasks.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int TASKS_PER_WRITER = 250;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private ConcurrentTaskManager taskManager;
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    void shouldKeepInvariantsUnderConcurrentWritesAndReads() throws Exception {
+        final Epic epic = (Epic) taskManager.createEpic(new Epic("Epic", "Description of Epic", TaskStatus.NEW));
+        final ConcurrentLinkedQueue<Integer> createdIds = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<String> readerErrors = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final CountDownLatch ready = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        final List<Future<?>> writers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+
+            writers.add(executor.submit(() -> {
+                ready.await();
+
+                for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                    final int slot = writer * TASKS_PER_WRITER + i;
+                    final LocalDateTime startTime = START.plusHours(slot * 2L);
+                    final Task task;
+
+                    if (i % 2 == 0) {
+                        task = taskManager.createNormalTask(new Task("Task " + slot, "Description",
+                                TaskType.NORMAL, TaskStatus.NEW, 60, startTime));
+                    } else {
+                        task = taskManager.createSubtask(new Subtask("Subtask " + slot, "Description",
+                                epic.getId(), 60, startTime));
+                        taskManager.updateSubtask(new Subtask(task.getId(), "Subtask " + slot, "Description",
+                                epic.getId(), TaskStatus.DONE));
+                    }
+                    // Просмотры перестраивают историю, пока читатели её обходят
+                    taskManager.getEpic(epic.getId());
+                    createdIds.add(task.getId());
+                }
+                return null;
+            }));
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                ready.await();
+
+                while (writing.get()) {
+                    final Set<Integer> seen = new HashSet<>();
+                    LocalDateTime previous = null;
+
+                    // Обычные задачи после создания не меняются, поэтому их порядок можно проверять и после чтения
+                    for (Task task : taskManager.getPrioritizedTasks()) {
+                        if (!seen.add(task.getId())) {
+                            readerErrors.add("Задача " + task.getId() + " прочитана дважды");
+                        }
+                        if (task.getType() == TaskType.NORMAL) {
+                            if (previous != null && previous.isAfter(task.getStartTime())) {
+                                readerErrors.add("Нарушен порядок приоритетного списка");
+                            }
+                            previous = task.getStartTime();
+                        }
+                    }
+                    if (taskManager.getAllSubtasks().size() > WRITERS * TASKS_PER_WRITER) {
+                        readerErrors.add("Прочитано больше подзадач, чем создано");
+                    }
+                    taskManager.getSubtasksForEpic(epic.getId());
+
+                    final List<Task> history = taskManager.getHistory();
+
+                    if (history.size() > InMemoryHistoryManager.DEFAULT_CAPACITY
+                            || new HashSet<>(history).size() != history.size()) {
+                        readerErrors.add("Несогласованная история: " + history);
+                    }
+                }
+                return null;
+            });
+        }
+
+        ready.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Потоки не завершились");
+
+        final int total = WRITERS * TASKS_PER_WRITER;
+        final Set<Integer> uniqueIds = new HashSet<>(createdIds);
+
+        assertTrue(readerErrors.isEmpty(), readerErrors.toString());
+        assertEquals(total, uniqueIds.size(), "Идентификаторы повторяются");
+        assertEquals(total / 2, taskManager.getAllNormalTasks().size(), "Неверное количество задач");
+        assertEquals(total / 2, taskManager.getAllSubtasks().size(), "Неверное количество подзадач");
+        assertEquals(total / 2, taskManager.getSubtasksForEpic(epic.getId()).size(),
+                "Эпик потерял подзадачи");
+        assertEquals(total + 1, taskManager.getPrioritizedTasks().size(), "Неверный размер приоритетного списка");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus(), "Неверный статус эпика");
+    }
+}
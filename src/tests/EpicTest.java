@@ -9,6 +9,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -173,4 +174,101 @@ class EpicTest  {
 
         assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика неверный");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReturnEpicDoneWhenSubtasksUpdatedToDone() {
+        Subtask subtaskTest1 = new Subtask(2, "Subtask 1", "Description of Subtask 1", 1);
+        taskManager.createSubtask(subtaskTest1);
+
+        Subtask subtaskTest2 = new Subtask(3, "Subtask 2", "Description of Subtask 2", 1,
+                TaskStatus.IN_PROGRESS);
+        taskManager.createSubtask(subtaskTest2);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика неверный");
+
+        taskManager.updateSubtask(new Subtask(subtaskTest1.getId(), "Subtask 1", "Description of Subtask 1", 1,
+                TaskStatus.DONE));
+        taskManager.updateSubtask(new Subtask(subtaskTest2.getId(), "Subtask 2", "Description of Subtask 2", 1,
+                TaskStatus.DONE));
+
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не пересчитался");
+    }
+
+    @Test
+    public void shouldRecalculateEpicStatusWhenSubtaskDeleted() {
+        Subtask subtaskTest1 = new Subtask(2, "Subtask 1", "Description of Subtask 1", 1,
+                TaskStatus.DONE);
+        taskManager.createSubtask(subtaskTest1);
+
+        Subtask subtaskTest2 = new Subtask(3, "Subtask 2", "Description of Subtask 2", 1);
+        taskManager.createSubtask(subtaskTest2);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика неверный");
+
+        taskManager.deleteSubtask(subtaskTest2.getId());
+
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не пересчитался");
+        assertEquals(1, epic.getSubtaskIds().size(), "Подзадача не удалилась из эпика");
+
+        taskManager.deleteAllSubtasks();
+
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Статус эпика не сбросился");
+    }
+
+    @Test
+    public void shouldKeepEpicTimeCurrentWithoutRecalculation() {
+        Subtask subtaskTest1 = new Subtask(2, "Subtask 1", "Description of Subtask 1", 1,
+                10, LocalDateTime.of(2023, 1, 1, 1, 1));
+        taskManager.createSubtask(subtaskTest1);
+
+        Subtask subtaskTest2 = new Subtask(3, "Subtask 2", "Description of Subtask 2", 1,
+                20, LocalDateTime.of(2024, 1, 1, 1, 1));
+        taskManager.createSubtask(subtaskTest2);
+
+        assertEquals(subtaskTest1.getStartTime(), epic.getStartTime(), "Время начала неверное");
+        assertEquals(subtaskTest2.getEndTime(), epic.getEndTime(), "Время конца неверное");
+        assertEquals(30, epic.getDuration(), "Длительность неверная");
+
+        taskManager.deleteSubtask(subtaskTest1.getId());
+
+        assertEquals(subtaskTest2.getStartTime(), epic.getStartTime(), "Время начала не пересчиталось");
+        assertEquals(subtaskTest2.getEndTime(), epic.getEndTime(), "Время конца не пересчиталось");
+        assertEquals(20, epic.getDuration(), "Длительность не пересчиталась");
+
+        taskManager.deleteSubtask(subtaskTest2.getId());
+
+        assertNull(epic.getStartTime(), "Время начала не сбросилось");
+        assertNull(epic.getEndTime(), "Время конца не сбросилось");
+        assertEquals(0, epic.getDuration(), "Длительность не сбросилась");
+    }
+
+    @Test
+    public void shouldRecalculateEpicWhenStoredSubtaskUpdatedInPlace() {
+        taskManager.createSubtask(new Subtask(2, "Subtask 1", "Description of Subtask 1", 1,
+                10, LocalDateTime.of(2024, 1, 1, 9, 0)));
+        taskManager.createSubtask(new Subtask(3, "Subtask 2", "Description of Subtask 2", 1,
+                TaskStatus.DONE));
+
+        Subtask stored = taskManager.getSubtask(2);
+        stored.setStatus(TaskStatus.DONE);
+        stored.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        stored.setDuration(30);
+        taskManager.updateSubtask(stored);
+
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не пересчитался");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), epic.getStartTime(), "Начало эпика не пересчиталось");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 30), epic.getEndTime(), "Конец эпика не пересчитался");
+        assertEquals(30, epic.getDuration(), "Продолжительность эпика не пересчиталась");
+
+        stored.setStatus(TaskStatus.IN_PROGRESS);
+        stored.setStartTime(null);
+        taskManager.updateAll(List.of(stored));
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика не пересчитался при пакетном обновлении");
+        assertNull(epic.getStartTime(), "Начало эпика не сбросилось при пакетном обновлении");
+
+        taskManager.deleteSubtask(2);
+
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Удаление учло изменённую на месте подзадачу неверно");
+    }
+}
@@ -1,6 +1,7 @@
 package tests;
 
 import manager.FileBackedTasksManager;
+import manager.TaskEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import tasks.enums.TaskType;
@@ -12,6 +13,10 @@ import tasks.enums.TaskStatus;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +86,220 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         compareFiles("./resources/tasksForTests.csv", "./resources/tasksForTests2.csv");
     }
 
+    @Test
+    void shouldSaveOncePerBatch() {
+        final int[] saves = new int[1];
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(new File("./resources/tasksForTests2.csv")) {
+            @Override
+            protected void save() {
+                saves[0]++;
+            }
+        };
+        List<Task> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Task("Task " + i, "Description", TaskType.NORMAL, TaskStatus.NEW,
+                    30, LocalDateTime.of(2024, 2, 11, 15, 0, 0).plusHours(i)));
+        }
+
+        assertEquals(100, fileBacked.createAll(tasks).size(), "Создана не вся пачка");
+        assertEquals(1, saves[0], "Пачка сохранена не один раз");
+    }
+
+    @Test
+    void shouldNotSaveOnQueries() {
+        final int[] saves = new int[1];
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(new File("./resources/tasksForTests2.csv")) {
+            @Override
+            protected void save() {
+                saves[0]++;
+            }
+        };
+        Epic epic = fileBacked.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        Subtask subtask = fileBacked.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        saves[0] = 0;
+
+        fileBacked.query().peekEpic(epic.getId());
+        fileBacked.query().peekSubtask(subtask.getId());
+        fileBacked.query().getSubtasksForEpic(epic.getId());
+
+        assertEquals(0, saves[0], "Чтения вызвали сохранение");
+        assertTrue(fileBacked.getHistory().isEmpty(), "Чтения попали в историю");
+    }
+
+    @Test
+    void shouldRestoreStateOnRollback() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(file);
+
+        Epic epic = fileBacked.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        Subtask subtask = fileBacked.createSubtask(new Subtask("Subtask", "Description", epic.getId(),
+                30, LocalDateTime.of(2024, 2, 11, 15, 0, 0)));
+        List<LocalDateTime> startTimes = startTimes(fileBacked.getPrioritizedTasks());
+
+        fileBacked.begin();
+        fileBacked.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", epic.getId(),
+                TaskStatus.DONE));
+        fileBacked.createNormalTask(new Task("Task", "Description", TaskType.NORMAL, TaskStatus.NEW,
+                30, LocalDateTime.of(2024, 2, 11, 14, 0, 0)));
+
+        assertEquals(TaskStatus.DONE, fileBacked.getAllEpics().get(0).getStatus(), "Статус эпика не изменился");
+
+        fileBacked.rollback();
+
+        assertFalse(fileBacked.isInTransaction(), "Транзакция не завершилась");
+        assertTrue(fileBacked.getAllNormalTasks().isEmpty(), "Задача из отменённой транзакции осталась");
+        assertEquals(TaskStatus.NEW, fileBacked.getAllEpics().get(0).getStatus(), "Статус эпика не восстановлен");
+        assertEquals(TaskStatus.NEW, fileBacked.getAllSubtasks().get(0).getStatus(),
+                "Статус подзадачи не восстановлен");
+        assertEquals(startTimes, startTimes(fileBacked.getPrioritizedTasks()), "Список приоритетов не восстановлен");
+    }
+
+    private static List<LocalDateTime> startTimes(List<Task> tasks) {
+        List<LocalDateTime> startTimes = new ArrayList<>();
+
+        for (Task task : tasks) {
+            startTimes.add(task.getStartTime());
+        }
+        return startTimes;
+    }
+
+    @Test
+    void shouldPersistOnceOnCommit() {
+        final int[] writes = new int[1];
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(new File("./resources/tasksForTests2.csv")) {
+            @Override
+            protected void persist() {
+                writes[0]++;
+            }
+        };
+
+        fileBacked.begin();
+        for (int i = 0; i < 10; i++) {
+            Task task = fileBacked.createNormalTask(new Task("Task " + i, "Description", TaskType.NORMAL,
+                    TaskStatus.NEW));
+            fileBacked.getNormalTask(task.getId());
+        }
+        fileBacked.commit();
+
+        assertEquals(1, writes[0], "Транзакция сохранила состояние не один раз");
+        assertThrows(IllegalStateException.class, fileBacked::commit, "Завершена неначатая транзакция");
+
+        fileBacked.begin();
+        fileBacked.commit();
+
+        assertEquals(1, writes[0], "Транзакция без изменений сохранила состояние");
+    }
+
+    @Test
+    void shouldPersistUpdatesAndDeletes() {
+        final int[] writes = new int[1];
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(new File("./resources/tasksForTests2.csv")) {
+            @Override
+            protected void persist() {
+                writes[0]++;
+            }
+        };
+        Task task = fileBacked.createNormalTask(new Task("Task", "Description", TaskType.NORMAL, TaskStatus.NEW));
+        Epic epic = fileBacked.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        writes[0] = 0;
+
+        fileBacked.updateNormalTask(new Task(task.getId(), "Renamed", "Description", TaskType.NORMAL,
+                TaskStatus.DONE));
+        fileBacked.updateEpic(new Epic(epic.getId(), "Renamed", "Description", TaskStatus.NEW));
+        fileBacked.deleteNormalTask(task.getId());
+        fileBacked.deleteEpic(epic.getId());
+
+        assertEquals(4, writes[0], "Изменения и удаления сохраняются не каждое");
+    }
+
+    @Test
+    void shouldKeepTaskReferencesOnRollback() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(file);
+
+        Task kept = fileBacked.createNormalTask(new Task("Kept", "Description", TaskType.NORMAL, TaskStatus.NEW));
+        Task deleted = fileBacked.createNormalTask(new Task("Deleted", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+
+        fileBacked.begin();
+        fileBacked.updateNormalTask(new Task(kept.getId(), "Renamed", "Description", TaskType.NORMAL,
+                TaskStatus.DONE));
+        fileBacked.deleteNormalTask(deleted.getId());
+        fileBacked.rollback();
+
+        assertSame(kept, fileBacked.peekNormalTask(kept.getId()), "Откат заменил объект задачи");
+        assertEquals("Kept", kept.getName(), "Поля задачи не восстановлены");
+        assertEquals(TaskStatus.NEW, kept.getStatus(), "Статус задачи не восстановлен");
+        assertSame(deleted, fileBacked.peekNormalTask(deleted.getId()), "Удалённая задача не вернулась");
+        assertEquals(List.of(kept, deleted), fileBacked.getHistory(), "История не восстановлена");
+    }
+
+    @Test
+    void shouldRestoreDeletedEpicsAndHistoryOnRollback() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(file);
+
+        Epic epic = fileBacked.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        Subtask done = fileBacked.createSubtask(new Subtask("Done", "Description", epic.getId(), TaskStatus.DONE));
+        Subtask planned = fileBacked.createSubtask(new Subtask("Planned", "Description", epic.getId(),
+                30, LocalDateTime.of(2024, 2, 11, 15, 0, 0)));
+        Task task = fileBacked.createNormalTask(new Task("Task", "Description", TaskType.NORMAL, TaskStatus.NEW));
+        fileBacked.getSubtask(planned.getId());
+        fileBacked.getNormalTask(task.getId());
+
+        fileBacked.begin();
+        fileBacked.deleteSubtask(done.getId());
+        fileBacked.deleteEpic(epic.getId());
+        fileBacked.deleteAllNormalTasks();
+        fileBacked.rollback();
+
+        assertEquals(List.of(epic), fileBacked.getAllEpics(), "Эпик не вернулся");
+        assertEquals(List.of(done, planned), fileBacked.getAllSubtasks(), "Подзадачи не вернулись");
+        assertEquals(List.of(task), fileBacked.getAllNormalTasks(), "Задачи не вернулись");
+        assertEquals(List.of(done.getId(), planned.getId()), epic.getSubtaskIds(), "Подзадачи эпика не вернулись");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика не восстановлен");
+        assertEquals(planned.getStartTime(), epic.getStartTime(), "Время эпика не восстановлено");
+        assertEquals(List.of(planned, task), fileBacked.getHistory(), "История не восстановлена");
+    }
+
+    @Test
+    void shouldBringListenersBackInSyncOnRollback() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+        FileBackedTasksManager fileBacked = new FileBackedTasksManager(file);
+        Map<Integer, TaskStatus> cache = new HashMap<>();
+
+        fileBacked.addListener(event -> {
+            if (event.getKind() == TaskEvent.Kind.DELETED) {
+                cache.remove(event.getTask().getId());
+            } else {
+                cache.put(event.getTask().getId(), event.getTask().getStatus());
+            }
+        });
+
+        Task updated = fileBacked.createNormalTask(new Task("Updated", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+        Task deleted = fileBacked.createNormalTask(new Task("Deleted", "Description", TaskType.NORMAL,
+                TaskStatus.IN_PROGRESS));
+
+        fileBacked.begin();
+        fileBacked.updateNormalTask(new Task(updated.getId(), "Updated", "Description", TaskType.NORMAL,
+                TaskStatus.DONE));
+        fileBacked.deleteNormalTask(deleted.getId());
+        fileBacked.createNormalTask(new Task("Created", "Description", TaskType.NORMAL, TaskStatus.NEW));
+
+        assertEquals(TaskStatus.DONE, cache.get(updated.getId()), "Подписчик не получил изменение");
+
+        fileBacked.rollback();
+
+        assertEquals(Map.of(updated.getId(), TaskStatus.NEW, deleted.getId(), TaskStatus.IN_PROGRESS), cache,
+                "Подписчик не узнал об откате");
+    }
+
     private void compareFiles(String expectedFile, String actualFile) {
         FileBackedTasksManager expectedFileBacked = FileBackedTasksManager.loadFromFile(new File(expectedFile));
         FileBackedTasksManager actualFileBacked = FileBackedTasksManager.loadFromFile(new File(actualFile));
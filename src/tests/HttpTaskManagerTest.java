@@ -1,7 +1,9 @@
 package tests;
 
+import client.KVTaskClient;
 import manager.Managers;
 import http.HttpTaskManager;
+import http.LeasedIdAllocator;
 import server.KVServer;
 import tasks.enums.TaskType;
 import tasks.models.Epic;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -90,6 +93,39 @@ public class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         compareFiles(httpTaskManager, newHttpTaskManager);
     }
 
+    @Test
+    void shouldAllocateDisjointIdsAcrossNodes() throws IOException, InterruptedException {
+        HttpTaskManager otherNode = (HttpTaskManager) Managers.getDefault();
+
+        Task first = httpTaskManager.createNormalTask(new Task("Task 1", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+        Task second = otherNode.createNormalTask(new Task("Task 2", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+        Task third = httpTaskManager.createNormalTask(new Task("Task 3", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+
+        assertEquals(1, first.getId(), "Первый узел начал не с первого блока");
+        assertEquals(2, third.getId(), "Узел не продолжил свой блок");
+        assertEquals(1 + LeasedIdAllocator.DEFAULT_BLOCK_SIZE, second.getId(), "Второй узел получил чужой блок");
+    }
+
+    @Test
+    void shouldNotResetLeasesBySavedValues() throws IOException, InterruptedException {
+        KVTaskClient client = new KVTaskClient(URI.create("http://localhost:" + KVServer.PORT));
+
+        Task first = httpTaskManager.createNormalTask(new Task("Task 1", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+        client.put("ids", "not a counter");
+        HttpTaskManager otherNode = (HttpTaskManager) Managers.getDefault();
+        Task second = otherNode.createNormalTask(new Task("Task 2", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+
+        assertEquals(1, first.getId(), "Первый узел начал не с первого блока");
+        assertEquals(1 + LeasedIdAllocator.DEFAULT_BLOCK_SIZE, second.getId(), "Запись клиента сбросила счётчик");
+        assertEquals(2L * LeasedIdAllocator.DEFAULT_BLOCK_SIZE + 1, client.lease("ids", 1, 0),
+                "Счётчик аренды испорчен");
+    }
+
     private void compareFiles(HttpTaskManager actualManager, HttpTaskManager expectedManager) {
 
         int i = 0;
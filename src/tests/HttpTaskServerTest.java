@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import manager.InMemoryHistoryManager;
 import manager.Managers;
 import manager.TaskManager;
+import manager.TaskPage;
 import server.HttpTaskServer;
 import server.KVServer;
 import tasks.enums.TaskType;
@@ -40,11 +41,11 @@ class HttpTaskServerTest {
     void beforeEach() throws IOException, InterruptedException {
         kvServer = new KVServer();
         kvServer.start();
-        taskServer = new HttpTaskServer();
+        taskManager = Managers.getDefault();
+        taskServer = new HttpTaskServer(taskManager);
         taskServer.start();
         client = HttpClient.newHttpClient();
         gson = Managers.getGson();
-        taskManager = Managers.getDefault();
     }
 
     @AfterEach
@@ -1016,6 +1017,113 @@ class HttpTaskServerTest {
         assertEquals(expectedTasks, priorityResponse.body());
     }
 
+    @Test
+    void getNormalTasksPage_Return200StatusCode() throws IOException, InterruptedException {
+        for (int i = 1; i <= 3; i++) {
+            taskManager.createNormalTask(new Task("TaskName" + i, "TaskDescription", TaskType.NORMAL, TaskStatus.NEW));
+        }
+
+        URI url = URI.create("http://localhost:5000/tasks?limit=2");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        TaskPage<Task> page = taskManager.getNormalTasksPage(null, 2);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(page), response.body());
+
+        URI nextUrl = URI.create("http://localhost:5000/tasks?limit=2&cursor=" + page.getNextCursor());
+        HttpRequest nextRequest = HttpRequest.newBuilder()
+                .GET()
+                .uri(nextUrl)
+                .build();
+        HttpResponse<String> nextResponse = client.send(nextRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, nextResponse.statusCode());
+        assertEquals(gson.toJson(taskManager.getNormalTasksPage(page.getNextCursor(), 2)), nextResponse.body());
+    }
+
+    @Test
+    void getPrioritizedTasksWithinWindow_Return200StatusCode() throws IOException, InterruptedException {
+        Task early = taskManager.createNormalTask(new Task("TaskName", "TaskDescription", TaskType.NORMAL,
+                TaskStatus.NEW, 30, LocalDateTime.of(2022, 1, 1, 1, 0)));
+        taskManager.createNormalTask(new Task("TaskName2", "TaskDescription2", TaskType.NORMAL,
+                TaskStatus.NEW, 30, LocalDateTime.of(2022, 1, 3, 1, 0)));
+
+        URI url = URI.create("http://localhost:5000/prioritized?from=2022-01-01T00:00&to=2022-01-02T00:00");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(List.of(early)), response.body());
+    }
+
+    @Test
+    void getFreeSlot_Return200StatusCode() throws IOException, InterruptedException {
+        taskManager.createNormalTask(new Task("TaskName", "TaskDescription", TaskType.NORMAL,
+                TaskStatus.NEW, 60, LocalDateTime.of(2022, 1, 1, 9, 0)));
+
+        URI url = URI.create("http://localhost:5000/slots?duration=30&from=2022-01-01T09:30&to=2022-01-01T12:00");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(LocalDateTime.of(2022, 1, 1, 10, 0)), response.body());
+    }
+
+    @Test
+    void getFreeSlot_Return400StatusCodeForOutOfRangeRequest() throws IOException, InterruptedException {
+        for (String query : List.of("duration=0&from=2022-01-01T09:30",
+                "duration=120&from=%2B999999999-12-31T23:00")) {
+            URI url = URI.create("http://localhost:5000/slots?" + query);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .GET()
+                    .uri(url)
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), query);
+        }
+    }
+
+    @Test
+    void searchTasks_Return200StatusCode() throws IOException, InterruptedException {
+        Task report = taskManager.createNormalTask(new Task("Quarterly report", "Collect numbers", TaskType.NORMAL,
+                TaskStatus.NEW));
+        taskManager.createNormalTask(new Task("Team lunch", "Book a table", TaskType.NORMAL, TaskStatus.NEW));
+
+        URI url = URI.create("http://localhost:5000/search?q=repo*");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(List.of(report)), response.body());
+    }
+
+    @Test
+    void searchWithoutQuery_Return400StatusCode() throws IOException, InterruptedException {
+        URI url = URI.create("http://localhost:5000/search");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
     @Test
     void getTasksHistory() throws IOException, InterruptedException {
         URI url = URI.create("http://localhost:5000/tasks");
@@ -1063,4 +1171,41 @@ class HttpTaskServerTest {
         assertEquals(200, historyResponse.statusCode());
         assertEquals(expectedTasks, historyResponse.body());
     }
+
+    @Test
+    void getHistoryForSession_ReturnsOnlyOwnViews() throws IOException, InterruptedException {
+        Task first = taskManager.createNormalTask(new Task("First", "Description", TaskType.NORMAL, TaskStatus.NEW));
+        Task second = taskManager.createNormalTask(new Task("Second", "Description", TaskType.NORMAL,
+                TaskStatus.NEW));
+        List<Task> sharedHistory = taskManager.getHistory();
+
+        viewInSession("alice", first.getId());
+        viewInSession("bob", second.getId());
+        viewInSession("alice", second.getId());
+
+        assertEquals(gson.toJson(List.of(first, second)), historyInSession("alice").body());
+        assertEquals(gson.toJson(List.of(second)), historyInSession("bob").body());
+        assertEquals(gson.toJson(List.of()), historyInSession("carol").body());
+        assertEquals(sharedHistory, taskManager.getHistory(), "Просмотры сессий попали в общую историю");
+    }
+
+    private void viewInSession(String sessionId, int id) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:5000/tasks?id=" + id))
+                .header(HttpTaskServer.SESSION_HEADER, sessionId)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+    }
+
+    private HttpResponse<String> historyInSession(String sessionId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:5000/history"))
+                .header(HttpTaskServer.SESSION_HEADER, sessionId)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
 }
@@ -3,12 +3,17 @@ package tests;
 import manager.InMemoryHistoryManager;
 import tasks.enums.TaskStatus;
 import tasks.enums.TaskType;
+import tasks.models.Epic;
+import tasks.models.Subtask;
 import tasks.models.Task;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -134,4 +139,137 @@ class InMemoryHistoryManagerTest {
         assertNotNull(historyManager.getHistory());
         assertEquals(0,historyManager.getHistory().size(),"Неверная история просмотра");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldEvictOldestTaskWhenCapacityReached() {
+        historyManager = new InMemoryHistoryManager(2);
+
+        historyManager.add(normalTask1);
+        historyManager.add(normalTask2);
+        historyManager.add(normalTask1);
+        historyManager.add(normalTask3);
+
+        assertEquals(List.of(normalTask1, normalTask3), historyManager.getHistory(), "Вытеснена не самая старая задача");
+
+        historyManager.remove(normalTask1.getId());
+        historyManager.add(normalTask2);
+
+        assertEquals(List.of(normalTask3, normalTask2), historyManager.getHistory(), "Неверная история после удаления");
+    }
+
+    @Test
+    void shouldKeepDefaultCapacity() {
+        for (int id = 1; id <= InMemoryHistoryManager.DEFAULT_CAPACITY + 5; id++) {
+            historyManager.add(new Task(id, "Task " + id, "Description", TaskType.NORMAL, TaskStatus.NEW));
+        }
+
+        final List<Task> history = historyManager.getHistory();
+
+        assertEquals(InMemoryHistoryManager.DEFAULT_CAPACITY, history.size(), "Неверный размер истории");
+        assertEquals(6, history.get(0).getId(), "Вытеснены не самые старые задачи");
+    }
+
+    @Test
+    void shouldResolveTasksFromStoreOnRead() {
+        final Map<Integer, Task> store = new HashMap<>();
+        historyManager = new InMemoryHistoryManager(2, store::get);
+
+        store.put(normalTask1.getId(), normalTask1);
+        store.put(normalTask2.getId(), normalTask2);
+        historyManager.add(normalTask1);
+        historyManager.add(normalTask2);
+
+        final Task renamed = new Task(normalTask2.getId(), "Renamed", "Description", TaskType.NORMAL,
+                TaskStatus.DONE);
+
+        store.put(renamed.getId(), renamed);
+        store.remove(normalTask1.getId());
+
+        final List<Task> history = historyManager.getHistory();
+
+        assertEquals(1, history.size(), "Удалённая из хранилища задача осталась в истории");
+        assertSame(renamed, history.get(0), "История отдала устаревшую версию задачи");
+    }
+
+    @Test
+    void shouldRemoveOnlyTasksOfExactType() {
+        final Epic epic = new Epic(4, "Epic", "Description", TaskStatus.NEW);
+        final Subtask subtask = new Subtask(5, "Subtask", "Description", epic.getId());
+
+        historyManager.add(normalTask1);
+        historyManager.add(epic);
+        historyManager.add(normalTask2);
+        historyManager.add(subtask);
+        historyManager.add(normalTask3);
+        historyManager.removeAllTasksOfType(Task.class);
+
+        assertEquals(List.of(epic, subtask), historyManager.getHistory(), "Удалены задачи других типов");
+
+        historyManager.add(normalTask1);
+        historyManager.removeAllTasksOfType(Epic.class);
+
+        assertEquals(List.of(subtask, normalTask1), historyManager.getHistory(), "Неверная история после удаления");
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
+
+    @Test
+    void shouldKeepLatestTasksAtLargeCapacity() {
+        final int capacity = 10_000;
+        final Task[] tasks = tasks(20_000);
+
+        historyManager = new InMemoryHistoryManager(capacity);
+
+        for (int i = 0; i < 50_000; i++) {
+            historyManager.add(tasks[i % tasks.length]);
+        }
+
+        final List<Task> history = historyManager.getHistory();
+
+        assertEquals(capacity, history.size(), "Неверный размер истории");
+        assertEquals(tasks[0], history.get(0), "Вытеснены не самые старые задачи");
+        assertEquals(tasks[capacity - 1], history.get(capacity - 1), "Неверная последняя задача");
+    }
+
+    /**
+     * Замер: добавление в историю на 10 000 записей не должно быть заметно дороже, чем в историю на 10.
+     * На загруженной машине время непредсказуемо, поэтому замер запускается вручную.
+     */
+    @Test
+    @Disabled("Замер производительности, запускается вручную")
+    void measureAddCostByCapacity() {
+        final int operations = 200_000;
+        final Task[] tasks = tasks(20_000);
+
+        measureAdds(10, tasks, operations);
+        measureAdds(10_000, tasks, operations);
+
+        final long small = measureAdds(10, tasks, operations);
+        final long large = measureAdds(10_000, tasks, operations);
+
+        System.out.printf("История: %d нс на добавление при вместимости 10, %d нс при вместимости 10000%n",
+                small / operations, large / operations);
+    }
+
+    private static Task[] tasks(int count) {
+        final Task[] tasks = new Task[count];
+
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i + 1, "Task", "Description", TaskType.NORMAL, TaskStatus.NEW);
+        }
+        return tasks;
+    }
+
+    private static long measureAdds(int capacity, Task[] tasks, int operations) {
+        final InMemoryHistoryManager history = new InMemoryHistoryManager(capacity);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < operations; i++) {
+            history.add(tasks[i % tasks.length]);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -1,6 +1,11 @@
 package tests;
 
 import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import manager.TaskEvent;
+import manager.TaskEventBus;
+import manager.TaskPage;
+import manager.TaskQuery;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +16,9 @@ import tasks.models.Subtask;
 import tasks.models.Task;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -378,4 +386,467 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
         assertEquals(1, taskManager.getAllEpics().size(), "Задача не удалилась из списка");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectOverlappingNormalTask() {
+        Task first = new Task("Task 1", "Description of Task 1", TaskType.NORMAL, TaskStatus.NEW,
+                60, LocalDateTime.of(2024, 1, 1, 10, 0));
+        Task overlapping = new Task("Task 2", "Description of Task 2", TaskType.NORMAL, TaskStatus.NEW,
+                60, LocalDateTime.of(2024, 1, 1, 10, 30));
+        Task adjacent = new Task("Task 3", "Description of Task 3", TaskType.NORMAL, TaskStatus.NEW,
+                60, LocalDateTime.of(2024, 1, 1, 11, 0));
+
+        assertNotNull(taskManager.createNormalTask(first), "Задача не создалась");
+        assertNull(taskManager.createNormalTask(overlapping), "Пересекающаяся задача создалась");
+        assertNotNull(taskManager.createNormalTask(adjacent), "Соседняя задача не создалась");
+        assertEquals(2, taskManager.getAllNormalTasks().size(), "Неверное количество задач");
+    }
+
+    @Test
+    void shouldFreeTimeSlotAfterDeleteAndUpdate() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        Task first = taskManager.createNormalTask(new Task("Task 1", "Description of Task 1", TaskType.NORMAL,
+                TaskStatus.NEW, 60, start));
+
+        taskManager.deleteNormalTask(first.getId());
+
+        Task second = taskManager.createNormalTask(new Task("Task 2", "Description of Task 2",
+                TaskType.NORMAL, TaskStatus.NEW, 60, start));
+
+        assertNotNull(second, "Освободившееся время недоступно после удаления");
+
+        Task moved = new Task(second.getId(), "Task 2", "Description of Task 2", TaskType.NORMAL,
+                TaskStatus.NEW, 60, start.plusHours(2));
+
+        assertNotNull(taskManager.updateNormalTask(moved), "Задача не обновилась");
+        assertNotNull(taskManager.createNormalTask(new Task("Task 3", "Description of Task 3",
+                TaskType.NORMAL, TaskStatus.NEW, 60, start)), "Освободившееся время недоступно после обновления");
+    }
+
+    @Test
+    void shouldIgnoreTasksWithoutStartTimeWhenCheckingOverlaps() {
+        taskManager.createNormalTask(normalTask);
+
+        Task scheduled = new Task("Task 2", "Description of Task 2", TaskType.NORMAL, TaskStatus.NEW,
+                60, LocalDateTime.of(2024, 1, 1, 10, 0));
+
+        assertNotNull(taskManager.createNormalTask(scheduled), "Задача без времени помешала созданию");
+    }
+
+    @Test
+    void shouldKeepSeparateStorageForEachManager() {
+        InMemoryTaskManager otherManager = new InMemoryTaskManager();
+
+        taskManager.createNormalTask(normalTask);
+
+        assertEquals(1, taskManager.getAllNormalTasks().size(), "Неверное количество задач");
+        assertEquals(0, otherManager.getAllNormalTasks().size(), "Менеджеры делят одно хранилище");
+        assertEquals(0, otherManager.getPrioritizedTasks().size(), "Менеджеры делят один список приоритетов");
+    }
+
+    @Test
+    void shouldReturnSnapshotsUnaffectedByLaterWrites() {
+        taskManager.createNormalTask(normalTask);
+
+        final List<Task> tasks = taskManager.getAllNormalTasks();
+        final List<Task> prioritized = taskManager.getPrioritizedTasks();
+
+        taskManager.deleteNormalTask(normalTask.getId());
+        taskManager.createNormalTask(new Task("Task 2", "Description of Task 2", TaskType.NORMAL, TaskStatus.NEW));
+
+        assertEquals(List.of(normalTask), tasks, "Снимок задач изменился после записи");
+        assertEquals(List.of(normalTask), prioritized, "Снимок приоритетов изменился после записи");
+        assertEquals(1, taskManager.getAllNormalTasks().size(), "Новый снимок не видит запись");
+    }
+
+    @Test
+    void shouldPageThroughNormalTasksInIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createNormalTask(new Task("Task " + i, "Description", TaskType.NORMAL, TaskStatus.NEW));
+        }
+
+        final List<Task> paged = new ArrayList<>();
+        TaskPage<Task> page = taskManager.getNormalTasksPage(null, 2);
+        paged.addAll(page.getItems());
+
+        while (page.hasNext()) {
+            page = taskManager.getNormalTasksPage(page.getNextCursor(), 2);
+            assertTrue(page.getItems().size() <= 2, "Страница больше лимита");
+            paged.addAll(page.getItems());
+        }
+
+        assertEquals(taskManager.getAllNormalTasks(), paged, "Страницы не совпадают с полным списком");
+    }
+
+    @Test
+    void shouldContinuePrioritizedPageAfterDeletedTask() {
+        for (int i = 0; i < 4; i++) {
+            taskManager.createNormalTask(new Task("Task " + i, "Description", TaskType.NORMAL, TaskStatus.NEW,
+                    30, LocalDateTime.of(2022, 1, 1, 1, 0).minusHours(i)));
+        }
+        taskManager.createNormalTask(new Task("Unscheduled", "Description", TaskType.NORMAL, TaskStatus.NEW));
+
+        final List<Task> prioritized = new ArrayList<>(taskManager.getPrioritizedTasks());
+        final TaskPage<Task> first = taskManager.getPrioritizedTasksPage(null, 2);
+
+        taskManager.deleteNormalTask(first.getItems().get(1).getId());
+
+        final TaskPage<Task> rest = taskManager.getPrioritizedTasksPage(first.getNextCursor(), 10);
+
+        assertEquals(prioritized.subList(0, 2), first.getItems(), "Неверная первая страница");
+        assertEquals(prioritized.subList(2, 5), rest.getItems(), "Неверное продолжение после удаления");
+        assertFalse(rest.hasNext(), "У последней страницы есть курсор");
+    }
+
+    @Test
+    void shouldRejectInvalidPageRequest() {
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getEpicsPage(null, 0),
+                "Принят нулевой размер страницы");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getEpicsPage("not a cursor", 10),
+                "Принят некорректный курсор");
+    }
+
+    @Test
+    void shouldKeepStatusIndexCurrent() {
+        taskManager.createEpic(epicWithNewAndDoneSubtask);
+        final Subtask subtask = (Subtask) taskManager.createSubtask(new Subtask("Subtask", "Description",
+                epicWithNewAndDoneSubtask.getId()));
+
+        assertEquals(List.of(subtask), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.SUBTASK),
+                "Новая подзадача не попала в индекс");
+        assertEquals(List.of(epicWithNewAndDoneSubtask), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.EPIC),
+                "Новый эпик не попал в индекс");
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description",
+                epicWithNewAndDoneSubtask.getId(), TaskStatus.IN_PROGRESS));
+
+        assertTrue(taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.SUBTASK).isEmpty(),
+                "Подзадача осталась в старом статусе");
+        assertEquals(List.of(subtask), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.SUBTASK),
+                "Подзадача не перешла в новый статус");
+        assertEquals(List.of(epicWithNewAndDoneSubtask),
+                taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.EPIC), "Эпик не сменил статус в индексе");
+
+        taskManager.deleteSubtask(subtask.getId());
+
+        assertTrue(taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS, TaskType.SUBTASK).isEmpty(),
+                "Удалённая подзадача осталась в индексе");
+        assertEquals(List.of(epicWithNewAndDoneSubtask), taskManager.getTasksByStatus(TaskStatus.NEW, TaskType.EPIC),
+                "Эпик без подзадач не вернулся в NEW");
+    }
+
+    @Test
+    void shouldReturnTasksStartingWithinRange() {
+        final LocalDateTime monday = LocalDateTime.of(2024, 1, 1, 9, 0);
+        final List<Task> tasks = new ArrayList<>();
+
+        for (int day = 0; day < 7; day++) {
+            tasks.add(taskManager.createNormalTask(new Task("Task " + day, "Description", TaskType.NORMAL,
+                    TaskStatus.NEW, 60, monday.plusDays(day))));
+        }
+        taskManager.createNormalTask(new Task("Unscheduled", "Description", TaskType.NORMAL, TaskStatus.NEW));
+
+        assertEquals(tasks.subList(0, 4), taskManager.getTasksBetween(monday, monday.plusDays(4)),
+                "Неверные задачи с понедельника по четверг");
+        assertEquals(tasks.subList(5, 7), taskManager.getTasksBetween(monday.plusDays(4).plusMinutes(1), null),
+                "Неверные задачи без верхней границы");
+        assertEquals(tasks, taskManager.getTasksBetween(null, null), "Задачи без времени попали в диапазон");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getTasksBetween(monday.plusDays(1), monday), "Принят перевёрнутый диапазон");
+    }
+
+    @Test
+    void shouldFindEarliestFreeSlot() {
+        final LocalDateTime nine = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        taskManager.createNormalTask(new Task("Morning", "Description", TaskType.NORMAL, TaskStatus.NEW, 60, nine));
+        taskManager.createNormalTask(new Task("Call", "Description", TaskType.NORMAL, TaskStatus.NEW, 30,
+                nine.plusMinutes(90)));
+        taskManager.createNormalTask(new Task("Reminder", "Description", TaskType.NORMAL, TaskStatus.NEW, 0,
+                nine.plusMinutes(150)));
+
+        assertEquals(nine.plusMinutes(60), taskManager.findFreeSlot(30, nine, null),
+                "Не найден промежуток между задачами");
+        assertEquals(nine.plusMinutes(150), taskManager.findFreeSlot(45, nine, null),
+                "Задача должна начинаться с точечной задачи, а не раньше");
+        assertEquals(nine.plusMinutes(60), taskManager.findFreeSlot(1, nine.plusMinutes(30), null),
+                "Интервал начинается внутри занятого");
+        assertNull(taskManager.findFreeSlot(45, nine, nine.plusMinutes(180)), "Найден интервал за границей поиска");
+
+        final LocalDateTime slot = taskManager.findFreeSlot(45, nine, null);
+
+        assertNotNull(taskManager.createNormalTask(new Task("Booked", "Description", TaskType.NORMAL, TaskStatus.NEW,
+                45, slot)), "Найденный интервал оказался занят");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlot(0, nine, null),
+                "Принят интервал нулевой длины");
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenTasksOverlapEachOther() {
+        final LocalDateTime nine = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        final List<Task> created = taskManager.createAll(List.of(
+                new Task("Task 1", "Description", TaskType.NORMAL, TaskStatus.NEW, 60, nine),
+                new Task("Task 2", "Description", TaskType.NORMAL, TaskStatus.NEW, 0, nine.plusMinutes(60)),
+                new Task("Task 3", "Description", TaskType.NORMAL, TaskStatus.NEW, 30, nine.plusMinutes(30))));
+
+        assertTrue(created.isEmpty(), "Пачка с пересечением создана");
+        assertTrue(taskManager.getAllNormalTasks().isEmpty(), "Часть пачки осталась в менеджере");
+        assertNotNull(taskManager.createNormalTask(new Task("Task 4", "Description", TaskType.NORMAL,
+                TaskStatus.NEW, 60, nine)), "Отклонённая пачка заняла время");
+    }
+
+    @Test
+    void shouldCreateSubtasksInBatchAndRecalculateEpic() {
+        final LocalDateTime nine = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.createEpic(epicWithNewAndDoneSubtask);
+        final int epicId = epicWithNewAndDoneSubtask.getId();
+
+        final List<Task> created = taskManager.createAll(List.of(
+                new Subtask("Subtask 1", "Description", epicId, 30, nine.plusMinutes(60)),
+                new Subtask("Subtask 2", "Description", epicId, 30, nine),
+                new Task("Task", "Description", TaskType.NORMAL, TaskStatus.NEW, 0, nine.plusMinutes(30))));
+
+        assertEquals(3, created.size(), "Создана не вся пачка");
+        assertEquals(2, taskManager.getSubtasksForEpic(epicId).size(), "Эпик не получил подзадачи");
+        assertEquals(nine, epicWithNewAndDoneSubtask.getStartTime(), "Неверное начало эпика");
+        assertEquals(nine.plusMinutes(90), epicWithNewAndDoneSubtask.getEndTime(), "Неверный конец эпика");
+        assertEquals(4, taskManager.getPrioritizedTasks().size(), "Неверный размер списка приоритетов");
+    }
+
+    @Test
+    void shouldSwapTaskTimesInOneBatch() {
+        final LocalDateTime nine = LocalDateTime.of(2024, 1, 1, 9, 0);
+        final Task first = taskManager.createNormalTask(new Task("Task 1", "Description", TaskType.NORMAL,
+                TaskStatus.NEW, 60, nine));
+        final Task second = taskManager.createNormalTask(new Task("Task 2", "Description", TaskType.NORMAL,
+                TaskStatus.NEW, 60, nine.plusMinutes(60)));
+
+        final List<Task> updated = taskManager.updateAll(List.of(
+                new Task(first.getId(), "Task 1", "Description", TaskType.NORMAL, TaskStatus.DONE, 60,
+                        nine.plusMinutes(60)),
+                new Task(second.getId(), "Task 2", "Description", TaskType.NORMAL, TaskStatus.NEW, 60, nine)));
+
+        assertEquals(List.of(first, second), updated, "Обновлена не вся пачка");
+        assertEquals(List.of(second, first), taskManager.getPrioritizedTasks(), "Задачи не поменялись местами");
+        assertEquals(List.of(first), taskManager.getTasksByStatus(TaskStatus.DONE, TaskType.NORMAL),
+                "Статус не попал в индекс");
+    }
+
+    @Test
+    void shouldDeleteMixedIdsInOneBatch() {
+        taskManager.createEpic(epicWithNewAndDoneSubtask);
+        taskManager.createEpic(epicWithDoneSubtasks);
+        final Subtask kept = (Subtask) taskManager.createSubtask(new Subtask("Kept", "Description",
+                epicWithNewAndDoneSubtask.getId(), TaskStatus.DONE));
+        final Subtask removed = (Subtask) taskManager.createSubtask(new Subtask("Removed", "Description",
+                epicWithNewAndDoneSubtask.getId()));
+        final Subtask cascaded = (Subtask) taskManager.createSubtask(new Subtask("Cascaded", "Description",
+                epicWithDoneSubtasks.getId()));
+        taskManager.createNormalTask(normalTask);
+
+        taskManager.deleteAll(List.of(removed.getId(), epicWithDoneSubtasks.getId(), normalTask.getId(), 999));
+
+        assertEquals(List.of(epicWithNewAndDoneSubtask), taskManager.getAllEpics(), "Неверные эпики");
+        assertEquals(List.of(kept), taskManager.getAllSubtasks(), "Неверные подзадачи");
+        assertNull(taskManager.findSubtaskById(cascaded.getId()), "Подзадача удалённого эпика осталась");
+        assertTrue(taskManager.getAllNormalTasks().isEmpty(), "Задача не удалена");
+        assertEquals(TaskStatus.DONE, epicWithNewAndDoneSubtask.getStatus(), "Статус эпика не пересчитан");
+    }
+
+    @Test
+    void shouldNotRecordHistoryForInternalLookupsAndQueries() {
+        final Epic epic = taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        final Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", epic.getId(),
+                TaskStatus.DONE));
+        taskManager.updateEpic(new Epic(epic.getId(), "Renamed", "Description", TaskStatus.NEW));
+
+        final TaskQuery query = taskManager.query();
+
+        assertEquals(epic, query.peekEpic(epic.getId()), "Эпик не найден");
+        assertEquals(subtask, query.peekTask(subtask.getId()), "Подзадача не найдена");
+        assertNull(query.peekNormalTask(epic.getId()), "Эпик найден среди задач");
+        assertFalse(query instanceof TaskManager, "Через представление доступны изменения");
+        assertTrue(taskManager.getHistory().isEmpty(), "Внутренние чтения попали в историю");
+    }
+
+    @Test
+    void shouldSearchByTermsAndPrefixes() {
+        final Task report = taskManager.createNormalTask(new Task("Отчёт за квартал", "Собрать отчёт и отправить",
+                TaskType.NORMAL, TaskStatus.NEW));
+        final Epic epic = taskManager.createEpic(new Epic("Отчётность", "Годовой отчёт", TaskStatus.NEW));
+        taskManager.createNormalTask(new Task("Обед", "Заказать столик", TaskType.NORMAL, TaskStatus.NEW));
+
+        assertEquals(List.of(report, epic), taskManager.search("ОТЧЁТ", 10), "Неверный поиск по слову");
+        assertEquals(List.of(report, epic), taskManager.search("отч*", 10), "Неверный поиск по префиксу");
+        assertEquals(List.of(report), taskManager.search("отч* квартал", 10), "Найдены задачи не со всеми словами");
+        assertEquals(List.of(report), taskManager.search("отчёт", 1), "Не соблюдён размер выдачи");
+        assertTrue(taskManager.search("отпуск", 10).isEmpty(), "Найдено несуществующее слово");
+    }
+
+    @Test
+    void shouldKeepSearchIndexInSyncWithUpdatesAndDeletes() {
+        final Task task = taskManager.createNormalTask(new Task("Старое название", "Описание", TaskType.NORMAL,
+                TaskStatus.NEW));
+        final Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание", TaskStatus.NEW));
+
+        taskManager.updateNormalTask(new Task(task.getId(), "Новое название", "Описание", TaskType.NORMAL,
+                TaskStatus.NEW));
+        taskManager.updateEpic(new Epic(epic.getId(), "Переименованный", "Описание", TaskStatus.NEW));
+
+        assertTrue(taskManager.search("старое", 10).isEmpty(), "Старое название осталось в индексе");
+        assertEquals(List.of(task), taskManager.search("новое", 10), "Новое название не проиндексировано");
+        assertEquals(List.of(epic), taskManager.search("переим*", 10), "Эпик не переиндексирован");
+
+        taskManager.deleteNormalTask(task.getId());
+        taskManager.deleteAllEpics();
+
+        assertTrue(taskManager.search("описание", 10).isEmpty(), "Удалённые задачи остались в индексе");
+    }
+
+    @Test
+    void shouldPublishEventsAfterEachChangeInOrder() {
+        final List<TaskEvent> events = new ArrayList<>();
+        final List<Integer> epicsSeenOnDelete = new ArrayList<>();
+
+        taskManager.addListener(event -> {
+            events.add(event);
+            if (event.getKind() == TaskEvent.Kind.DELETED) {
+                epicsSeenOnDelete.add(taskManager.getAllEpics().size());
+            }
+        });
+
+        final Epic epic = taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        final Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", epic.getId(),
+                TaskStatus.DONE));
+        taskManager.deleteAll(List.of(epic.getId()));
+
+        assertEquals(List.of(TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED, TaskEvent.Kind.UPDATED,
+                TaskEvent.Kind.STATUS_CHANGED, TaskEvent.Kind.STATUS_CHANGED, TaskEvent.Kind.DELETED,
+                TaskEvent.Kind.DELETED), kinds(events), "Неверная последовательность событий");
+        assertEquals(TaskStatus.NEW, events.get(4).getPreviousStatus(), "Неверный прежний статус эпика");
+        assertEquals(epic, events.get(4).getTask(), "Смена статуса эпика не опубликована");
+        assertEquals(List.of(0, 0), epicsSeenOnDelete, "Подписчик получил событие до завершения удаления");
+
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 1L, events.get(i).getSequence(), "Номера событий идут с пропуском");
+        }
+    }
+
+    @Test
+    void shouldDeliverEventsAfterBulkDeleteLargerThanEventQueue() {
+        final int count = TaskEventBus.DEFAULT_CAPACITY * 2 + 1;
+        final List<TaskEvent> events = new ArrayList<>();
+        final List<Integer> tasksSeenOnDelete = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            taskManager.createNormalTask(new Task("Task " + i, "Description", TaskType.NORMAL, TaskStatus.NEW));
+        }
+        taskManager.addListener(event -> {
+            events.add(event);
+            tasksSeenOnDelete.add(taskManager.getAllNormalTasks().size());
+            if (events.size() == 1) {
+                // Событие подписчика встаёт в очередь после всех событий удаления
+                taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+            }
+        });
+
+        taskManager.deleteAllNormalTasks();
+
+        assertEquals(count + 1, events.size(), "События потерялись");
+        assertEquals(0, (int) Collections.max(tasksSeenOnDelete), "Подписчик получил событие до завершения удаления");
+        assertEquals(TaskEvent.Kind.CREATED, events.get(count).getKind(), "Событие подписчика доставлено не последним");
+
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(0).getSequence() + i, events.get(i).getSequence(),
+                    "Номера событий идут с пропуском");
+        }
+    }
+
+    @Test
+    void shouldDeliverEventsPublishedByListener() {
+        final List<TaskEvent> events = new ArrayList<>();
+
+        taskManager.addListener(event -> {
+            events.add(event);
+            if (event.getKind() == TaskEvent.Kind.CREATED && event.getTask() instanceof Epic) {
+                taskManager.createSubtask(new Subtask("Subtask", "Description", event.getTask().getId()));
+            }
+        });
+        taskManager.addListener(event -> {
+            throw new IllegalStateException("Сбой подписчика");
+        });
+
+        taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+
+        assertEquals(List.of(TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED), kinds(events),
+                "Событие подписчика потерялось или сбой другого подписчика прервал доставку");
+        assertEquals(1, taskManager.getAllSubtasks().size(), "Подписчик не создал подзадачу");
+    }
+
+    @Test
+    void shouldDeleteEpicWithSubtasksWithoutRecalculatingIt() {
+        final Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание", TaskStatus.NEW));
+
+        for (int i = 0; i < 3; i++) {
+            final Subtask subtask = new Subtask("Подзадача " + i, "Описание", epic.getId(), 30,
+                    LocalDateTime.of(2024, 1, 1, i, 0));
+
+            subtask.setStatus(i == 0 ? TaskStatus.DONE : TaskStatus.NEW);
+            taskManager.createSubtask(subtask);
+            taskManager.getSubtask(subtask.getId());
+        }
+        taskManager.getEpic(epic.getId());
+
+        final List<TaskEvent> events = new ArrayList<>();
+        taskManager.addListener(events::add);
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(TaskEvent.Kind.DELETED, TaskEvent.Kind.DELETED, TaskEvent.Kind.DELETED,
+                TaskEvent.Kind.DELETED), kinds(events), "Удаляемый эпик пересчитывался по подзадачам");
+        assertTrue(taskManager.getAllSubtasks().isEmpty(), "Подзадачи не удалены");
+        assertTrue(taskManager.getHistory().isEmpty(), "Удалённые задачи остались в истории");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Удалённые задачи остались в списке приоритетов");
+        assertTrue(taskManager.search("описание", 10).isEmpty(), "Удалённые задачи остались в поисковом индексе");
+
+        for (TaskStatus status : TaskStatus.values()) {
+            assertTrue(taskManager.getTasksByStatus(status, TaskType.SUBTASK).isEmpty(),
+                    "Удалённые подзадачи остались в индексе статусов");
+        }
+        assertNotNull(taskManager.createNormalTask(new Task("Задача", "Описание", TaskType.NORMAL, TaskStatus.NEW,
+                30, LocalDateTime.of(2024, 1, 1, 0, 0))), "Время удалённой подзадачи осталось занятым");
+    }
+
+    @Test
+    void shouldClearOnlyDeletedTypeFromHistory() {
+        final Epic epic = taskManager.createEpic(new Epic("Эпик", "Описание", TaskStatus.NEW));
+        final Subtask subtask = taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        final Task task = taskManager.createNormalTask(new Task("Задача", "Описание", TaskType.NORMAL,
+                TaskStatus.NEW));
+
+        taskManager.getEpic(epic.getId());
+        taskManager.getSubtask(subtask.getId());
+        taskManager.getNormalTask(task.getId());
+        taskManager.deleteAllNormalTasks();
+
+        assertEquals(List.of(epic, subtask), taskManager.getHistory(), "Удаление задач очистило всю историю");
+
+        taskManager.deleteAllEpics();
+
+        assertTrue(taskManager.getHistory().isEmpty(), "Подзадачи удалённых эпиков остались в истории");
+    }
+
+    private static List<TaskEvent.Kind> kinds(List<TaskEvent> events) {
+        final List<TaskEvent.Kind> kinds = new ArrayList<>();
+
+        for (TaskEvent event : events) {
+            kinds.add(event.getKind());
+        }
+        return kinds;
+    }
+}
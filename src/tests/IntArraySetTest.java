@@ -0,0 +1,67 @@
+package tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.IntArraySet;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntArraySetTest {
+    private IntArraySet set;
+
+    @BeforeEach
+    void beforeEach() {
+        set = new IntArraySet();
+    }
+
+    @Test
+    void addAndContains() {
+        assertTrue(set.add(5), "Элемент не добавился");
+        assertFalse(set.add(5), "Повторный элемент добавился");
+
+        assertTrue(set.contains(5), "Элемент не найден");
+        assertFalse(set.contains(6), "Найден отсутствующий элемент");
+        assertEquals(1, set.size(), "Неверный размер");
+    }
+
+    @Test
+    void removeKeepsInsertionOrder() {
+        set.add(3);
+        set.add(1);
+        set.add(2);
+
+        assertTrue(set.remove(1), "Элемент не удалился");
+        assertFalse(set.remove(1), "Отсутствующий элемент удалился");
+
+        assertArrayEquals(new int[]{3, 2}, set.toArray(), "Нарушен порядок добавления");
+        assertEquals("[3, 2]", set.toString(), "Неверное строковое представление");
+    }
+
+    @Test
+    void shouldBehaveLikeLinkedHashSetUnderRandomOperations() {
+        Set<Integer> expected = new LinkedHashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(500);
+
+            if (random.nextInt(3) < 2) {
+                assertEquals(expected.add(value), set.add(value), "Неверный результат add");
+            } else {
+                assertEquals(expected.remove(value), set.remove(value), "Неверный результат remove");
+            }
+        }
+
+        int[] actual = set.toArray();
+        int i = 0;
+
+        assertEquals(expected.size(), actual.length, "Размеры не совпадают");
+        for (int value : expected) {
+            assertEquals(value, actual[i++], "Порядок элементов не совпадает");
+        }
+    }
+}
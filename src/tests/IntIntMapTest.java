@@ -0,0 +1,61 @@
+package tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.IntIntMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+    private IntIntMap map;
+
+    @BeforeEach
+    void beforeEach() {
+        map = new IntIntMap();
+    }
+
+    @Test
+    void putAndGet() {
+        assertEquals(IntIntMap.MISSING, map.put(1, 0), "Ключ уже был в таблице");
+        assertEquals(0, map.put(1, 5), "Не вернулось старое значение");
+
+        assertEquals(5, map.get(1), "Неверное значение");
+        assertEquals(IntIntMap.MISSING, map.get(2), "Найдено значение для отсутствующего ключа");
+        assertTrue(map.containsKey(1), "Ключ не найден");
+        assertEquals(1, map.size(), "Неверный размер");
+    }
+
+    @Test
+    void shouldRejectNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+    }
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        final Map<Integer, Integer> expected = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(3_000) - 100;
+
+            if (random.nextInt(3) < 2) {
+                final Integer previous = expected.put(key, i);
+                assertEquals(previous == null ? IntIntMap.MISSING : previous, map.put(key, i),
+                        "Неверный результат put");
+            } else {
+                final Integer previous = expected.remove(key);
+                assertEquals(previous == null ? IntIntMap.MISSING : previous, map.remove(key),
+                        "Неверный результат remove");
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Размеры не совпадают");
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()), "Значения не совпадают");
+        }
+    }
+}
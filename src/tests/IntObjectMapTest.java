@@ -0,0 +1,113 @@
+package tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.IntObjectMap;
+import util.PersistentSortedSet;
+import util.SnapshotIntObjectMap;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+    private IntObjectMap<String> map;
+
+    @BeforeEach
+    void beforeEach() {
+        map = new IntObjectMap<>();
+    }
+
+    @Test
+    void putAndGet() {
+        assertNull(map.put(1, "one"), "Ключ уже был в таблице");
+        assertEquals("one", map.put(1, "first"), "Не вернулось старое значение");
+
+        assertEquals("first", map.get(1), "Неверное значение");
+        assertNull(map.get(2), "Найдено значение для отсутствующего ключа");
+        assertEquals(1, map.size(), "Неверный размер");
+    }
+
+    @Test
+    void remove() {
+        map.put(1, "one");
+        map.put(17, "seventeen");
+
+        assertEquals("one", map.remove(1), "Не вернулось удалённое значение");
+        assertNull(map.get(1), "Ключ не удалился");
+        assertEquals("seventeen", map.get(17), "Потерялся ключ из той же цепочки");
+        assertEquals(1, map.size(), "Неверный размер");
+    }
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(3_000) - 100;
+
+            if (random.nextInt(3) < 2) {
+                String value = "value" + i;
+                assertEquals(expected.put(key, value), map.put(key, value), "Неверный результат put");
+            } else {
+                assertEquals(expected.remove(key), map.remove(key), "Неверный результат remove");
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Размеры не совпадают");
+        assertEquals(expected.size(), map.values().size(), "Размер values не совпадает");
+
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "Значения не совпадают");
+        }
+    }
+
+    @Test
+    void shouldKeepTableProportionalToSize() {
+        for (int i = 0; i < 250_000; i++) {
+            map.put(i + 1_000, "value");
+        }
+
+        assertTrue(map.capacity() < 4 * map.size(), "Таблица непропорционально велика: " + map.capacity());
+
+        map.clear();
+
+        // Метки удалённых ячеек не должны копиться: таблица перестраивается под число живых записей
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i, "value");
+
+            if (i >= 1_000) {
+                map.remove(i - 1_000);
+            }
+        }
+
+        assertEquals(1_000, map.size(), "Неверный размер");
+        assertTrue(map.capacity() <= 4_096, "Таблица растёт от удалений: " + map.capacity());
+    }
+
+    @Test
+    void shouldPublishCurrentSnapshotOnEveryWrite() {
+        final SnapshotIntObjectMap<String> snapshots = new SnapshotIntObjectMap<>(
+                Comparator.comparingInt(value -> Integer.parseInt(value.substring(0, 1))));
+
+        snapshots.put(2, "2a");
+        snapshots.put(1, "1a");
+
+        final PersistentSortedSet<String> before = snapshots.snapshot();
+
+        assertSame(before, snapshots.snapshot(), "Чтение без записей построило новую версию");
+
+        snapshots.put(2, "2b");
+        snapshots.remove(1);
+
+        assertEquals(List.of("1a", "2a"), before.asList(), "Запись изменила выданную версию");
+        assertEquals(List.of("2b"), snapshots.snapshot().asList(), "Версия не отражает запись");
+        snapshots.clear();
+        assertTrue(snapshots.snapshot().isEmpty(), "Версия не очистилась");
+    }
+}
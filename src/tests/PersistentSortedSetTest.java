@@ -0,0 +1,95 @@
+package tests;
+
+import org.junit.jupiter.api.Test;
+import util.PersistentSortedSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedSetTest {
+
+    @Test
+    void shouldKeepOldVersionsUnchanged() {
+        final PersistentSortedSet<Integer> empty = PersistentSortedSet.empty(Comparator.naturalOrder());
+        final PersistentSortedSet<Integer> first = empty.add(2).add(1);
+        final PersistentSortedSet<Integer> second = first.add(3).remove(1);
+
+        assertEquals(List.of(), empty.asList(), "Пустая версия изменилась");
+        assertEquals(List.of(1, 2), first.asList(), "Первая версия изменилась");
+        assertEquals(List.of(2, 3), second.asList(), "Неверная вторая версия");
+        assertSame(second, second.remove(10), "Удаление отсутствующего элемента создало новую версию");
+    }
+
+    @Test
+    void shouldBuildBalancedSetFromUnsortedElements() {
+        final List<Integer> elements = new ArrayList<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            elements.add((i * 7919) % 1_000);
+        }
+
+        PersistentSortedSet<Integer> set = PersistentSortedSet.of(Comparator.naturalOrder(), elements);
+
+        assertEquals(1_000, set.size(), "Неверный размер");
+        assertEquals(500, (int) set.get(500), "Неверный порядок");
+
+        set = set.add(1_000).remove(0);
+
+        assertEquals(0, set.rank(value -> Integer.compare(1, value)), "Дерево испорчено после изменения");
+        assertEquals(1_000, (int) set.get(999), "Дерево испорчено после изменения");
+    }
+
+    @Test
+    void asListShouldBeReadOnly() {
+        final List<Integer> list = PersistentSortedSet.<Integer>empty(Comparator.naturalOrder()).add(1).asList();
+
+        assertThrows(UnsupportedOperationException.class, () -> list.add(2), "Список можно изменить");
+    }
+
+    @Test
+    void shouldBehaveLikeTreeSetUnderRandomOperations() {
+        final TreeSet<Integer> expected = new TreeSet<>();
+        final Random random = new Random(42);
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+
+        for (int i = 0; i < 50_000; i++) {
+            final int value = random.nextInt(2_000);
+
+            if (random.nextInt(3) < 2) {
+                expected.add(value);
+                set = set.add(value);
+            } else {
+                expected.remove(value);
+                set = set.remove(value);
+            }
+            assertEquals(expected.size(), set.size(), "Размеры не совпадают");
+        }
+
+        assertEquals(new ArrayList<>(expected), set.asList(), "Содержимое не совпадает");
+
+        final int index = expected.size() / 2;
+        assertEquals(new ArrayList<>(expected).get(index), set.get(index), "Неверный элемент по индексу");
+    }
+
+    @Test
+    void shouldSliceByRank() {
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+
+        for (int i = 0; i < 100; i += 10) {
+            set = set.add(i);
+        }
+
+        final int from = set.rank(value -> Integer.compare(25, value));
+        final int to = set.rank(value -> Integer.compare(60, value));
+
+        assertEquals(3, from, "Неверный ранг ключа между элементами");
+        assertEquals(6, to, "Неверный ранг существующего ключа");
+        assertEquals(List.of(30, 40, 50), set.slice(from, to), "Неверный срез");
+        assertEquals(List.of(30, 40, 50), new ArrayList<>(set.slice(from, to)), "Неверный обход среза");
+    }
+}
@@ -0,0 +1,148 @@
+package tests;
+
+import manager.PrioritizedIndex;
+import org.junit.jupiter.api.Test;
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrioritizedIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void shouldKeepTasksWithEqualStartTimes() {
+        final PrioritizedIndex index = new PrioritizedIndex();
+        final Task first = task(2, START);
+        final Task second = task(1, START);
+
+        index.add(first);
+        index.add(second);
+
+        assertEquals(List.of(second, first), index.snapshot().asList(), "Задачи с одинаковым началом потерялись");
+    }
+
+    @Test
+    void shouldRemoveTaskAfterItsTimeChanged() {
+        final PrioritizedIndex index = new PrioritizedIndex();
+        final Task task = task(1, START);
+
+        index.add(task);
+        task.setStartTime(null);
+
+        assertTrue(index.remove(1), "Задача не найдена после смены времени");
+        assertEquals(0, index.size(), "Задача осталась в списке");
+    }
+
+    @Test
+    void shouldKeepUnscheduledTasksInInsertionOrder() {
+        final PrioritizedIndex index = new PrioritizedIndex();
+        final Task late = task(3, null);
+        final Task early = task(1, null);
+        final Task scheduled = task(2, START);
+
+        index.add(late);
+        index.add(early);
+        index.add(scheduled);
+        index.add(late);
+
+        assertEquals(List.of(scheduled, late, early), index.snapshot().asList(),
+                "Задача без времени потеряла место при повторном добавлении");
+    }
+
+    @Test
+    void shouldMatchModelUnderRandomOperations() {
+        for (long seed = 0; seed < 20; seed++) {
+            final Random random = new Random(seed);
+            final PrioritizedIndex index = new PrioritizedIndex();
+            final Map<Integer, Task> tasks = new LinkedHashMap<>();
+            final Map<Integer, LocalDateTime> startTimes = new LinkedHashMap<>();
+
+            for (int step = 0; step < 500; step++) {
+                final int id = random.nextInt(60) + 1;
+
+                if (random.nextInt(4) == 0) {
+                    assertEquals(tasks.remove(id) != null, index.remove(id), "Неверный результат удаления, seed " + seed);
+                    startTimes.remove(id);
+                    continue;
+                }
+
+                // Небольшой набор времён даёт много совпадений начала
+                final LocalDateTime startTime = random.nextInt(3) == 0 ? null : START.plusHours(random.nextInt(10));
+                final Task task = tasks.computeIfAbsent(id, key -> task(key, null));
+                final LocalDateTime previous = startTimes.get(id);
+
+                task.setStartTime(startTime);
+                index.add(task);
+
+                if (startTime != null || previous != null) {
+                    startTimes.remove(id);
+                }
+                startTimes.put(id, startTime);
+
+                assertEquals(expectedOrder(tasks, startTimes), index.snapshot().asList(),
+                        "Список расходится с моделью, seed " + seed + ", шаг " + step);
+            }
+            assertPagesMatch(index, seed);
+        }
+    }
+
+    private static List<Task> expectedOrder(Map<Integer, Task> tasks, Map<Integer, LocalDateTime> startTimes) {
+        final List<Task> scheduled = new ArrayList<>();
+        final List<Task> unscheduled = new ArrayList<>();
+
+        // Порядок ключей startTimes - порядок последнего перемещения задачи, то есть порядок добавления
+        startTimes.forEach((id, startTime) -> (startTime == null ? unscheduled : scheduled).add(tasks.get(id)));
+        scheduled.sort(Comparator.comparing((Task task) -> startTimes.get(task.getId()))
+                .thenComparingInt(Task::getId));
+        scheduled.addAll(unscheduled);
+        return scheduled;
+    }
+
+    private static void assertPagesMatch(PrioritizedIndex index, long seed) {
+        final PrioritizedIndex.Snapshot snapshot = index.snapshot();
+        final List<Task> all = snapshot.asList();
+        final List<Task> iterated = new ArrayList<>();
+
+        for (int i = 0; i < all.size(); i++) {
+            final PrioritizedIndex.Entry entry = nth(snapshot.entries(), i);
+            final Iterator<PrioritizedIndex.Entry> after = snapshot.entriesAfter(entry.getTask().getId(),
+                    entry.getStartTime(), entry.getSequence());
+
+            assertEquals(all.size() - i - 1, count(after), "Неверный обход после записи, seed " + seed);
+            iterated.add(entry.getTask());
+        }
+        assertEquals(all, iterated, "Обход записей расходится со списком, seed " + seed);
+    }
+
+    private static PrioritizedIndex.Entry nth(Iterator<PrioritizedIndex.Entry> iterator, int n) {
+        for (int i = 0; i < n; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    private static int count(Iterator<?> iterator) {
+        int count = 0;
+
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static Task task(int id, LocalDateTime startTime) {
+        return new Task(id, "Task " + id, "Description", TaskType.NORMAL, TaskStatus.NEW, 30, startTime);
+    }
+}
@@ -0,0 +1,106 @@
+package tests;
+
+import manager.InMemoryTaskManager;
+import manager.SessionHistories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoriesTest {
+    private final AtomicLong clock = new AtomicLong();
+    private InMemoryTaskManager taskManager;
+    private Task first;
+    private Task second;
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new InMemoryTaskManager();
+        first = taskManager.createNormalTask(new Task("Task 1", "Description", TaskType.NORMAL, TaskStatus.NEW));
+        second = taskManager.createNormalTask(new Task("Task 2", "Description", TaskType.NORMAL, TaskStatus.NEW));
+    }
+
+    @Test
+    void shouldKeepSeparateHistoryForEachSession() {
+        final SessionHistories histories = new SessionHistories(taskManager.query(), 10, 100, Duration.ofMinutes(1),
+                clock::get);
+
+        histories.add("alice", first);
+        histories.add("bob", second);
+        histories.add("alice", second);
+
+        assertEquals(List.of(first, second), histories.getHistory("alice"),
+                "Неверная история первой сессии");
+        assertEquals(List.of(second), histories.getHistory("bob"), "Сессии видят чужие просмотры");
+        assertTrue(histories.getHistory("carol").isEmpty(), "Незнакомая сессия не пуста");
+        assertEquals(2, histories.size(), "Чтение завело новую сессию");
+    }
+
+    @Test
+    void shouldSkipDeletedTasksAndReturnCurrentVersion() {
+        final SessionHistories histories = new SessionHistories(taskManager.query(), 10, 100, Duration.ofMinutes(1),
+                clock::get);
+
+        histories.add("alice", first);
+        histories.add("alice", second);
+        taskManager.deleteNormalTask(first.getId());
+        taskManager.updateNormalTask(new Task(second.getId(), "Renamed", "Description", TaskType.NORMAL,
+                TaskStatus.DONE));
+
+        final List<Task> history = histories.getHistory("alice");
+
+        assertEquals(1, history.size(), "Удалённая задача осталась в истории");
+        assertEquals("Renamed", history.get(0).getName(), "История отдала устаревшую задачу");
+    }
+
+    @Test
+    void shouldEvictIdleSessions() {
+        final SessionHistories histories = new SessionHistories(taskManager.query(), 10, 100, Duration.ofMinutes(1),
+                clock::get);
+
+        histories.add("idle", first);
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        histories.add("active", first);
+        clock.addAndGet(Duration.ofSeconds(40).toMillis());
+        histories.add("active", second);
+
+        assertTrue(histories.getHistory("idle").isEmpty(), "Простаивающая сессия не удалена");
+        assertEquals(List.of(first, second), histories.getHistory("active"),
+                "Активная сессия удалена");
+    }
+
+    @Test
+    void shouldBoundNumberOfSessions() {
+        final int maxSessions = 1_000;
+        final SessionHistories histories = new SessionHistories(taskManager.query(), 10, maxSessions,
+                Duration.ofHours(1), clock::get);
+
+        for (int i = 0; i < 50_000; i++) {
+            clock.incrementAndGet();
+            histories.add("session-" + i, first);
+
+            assertTrue(histories.size() <= maxSessions, "Сессий больше предела");
+        }
+        assertEquals(List.of(first), histories.getHistory("session-49999"),
+                "Удалена самая свежая сессия");
+        assertTrue(histories.getHistory("session-0").isEmpty(), "Не удалена самая давняя сессия");
+    }
+
+    @Test
+    void shouldBoundSessionsWithEqualAccessTimes() {
+        final SessionHistories histories = new SessionHistories(taskManager.query(), 10, 10, Duration.ofHours(1), clock::get);
+
+        for (int i = 0; i < 11; i++) {
+            histories.add("session-" + i, first);
+        }
+
+        assertEquals(9, histories.size(), "При равном времени обращения удалено неверное число сессий");
+    }
+}
@@ -0,0 +1,101 @@
+package tests;
+
+import manager.TaskEvent;
+import manager.TaskEventBus;
+import org.junit.jupiter.api.Test;
+import tasks.enums.TaskStatus;
+import tasks.enums.TaskType;
+import tasks.models.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBusTest {
+    private static final int PUBLISHERS = 4;
+    private static final int EVENTS_PER_PUBLISHER = 20_000;
+
+    @Test
+    void shouldDeliverEveryEventOnceInOrderUnderContention() throws Exception {
+        // Маленький буфер заставляет публикующие потоки часто упираться в переполнение
+        final TaskEventBus bus = new TaskEventBus(8);
+        final Task task = new Task(1, "Task", "Description", TaskType.NORMAL, TaskStatus.NEW, 0, null);
+        final List<Long> received = new ArrayList<>();
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch ready = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(PUBLISHERS);
+        final List<Future<?>> publishers = new ArrayList<>();
+
+        bus.addListener(event -> {
+            if (inside.incrementAndGet() != 1) {
+                overlaps.incrementAndGet();
+            }
+            received.add(event.getSequence());
+            inside.decrementAndGet();
+        });
+
+        for (int p = 0; p < PUBLISHERS; p++) {
+            publishers.add(executor.submit(() -> {
+                ready.await();
+
+                for (int i = 0; i < EVENTS_PER_PUBLISHER; i++) {
+                    bus.publish(TaskEvent.Kind.UPDATED, task, null);
+                    if (i % 3 == 0) {
+                        bus.dispatch();
+                    }
+                }
+                bus.dispatch();
+                return null;
+            }));
+        }
+        ready.countDown();
+
+        for (Future<?> publisher : publishers) {
+            publisher.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        bus.dispatch();
+
+        assertEquals(0, overlaps.get(), "Подписчик вызывался из нескольких потоков одновременно");
+        assertEquals(PUBLISHERS * EVENTS_PER_PUBLISHER, received.size(), "События потерялись или повторились");
+
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i + 1L, (long) received.get(i), "События доставлены не по порядку");
+        }
+    }
+
+    @Test
+    void shouldKeepEventsQueuedUntilDispatchWhenBufferIsFull() {
+        final TaskEventBus bus = new TaskEventBus(2);
+        final Task task = new Task(1, "Task", "Description", TaskType.NORMAL, TaskStatus.NEW, 0, null);
+        final List<Long> received = new ArrayList<>();
+
+        bus.addListener(event -> {
+            received.add(event.getSequence());
+            if (event.getKind() == TaskEvent.Kind.CREATED) {
+                for (int i = 0; i < 3; i++) {
+                    bus.publish(TaskEvent.Kind.UPDATED, task, null);
+                }
+            }
+        });
+
+        for (int i = 0; i < 5; i++) {
+            bus.publish(i == 0 ? TaskEvent.Kind.CREATED : TaskEvent.Kind.DELETED, task, null);
+        }
+
+        assertTrue(received.isEmpty(), "Переполнение буфера раздало события до dispatch()");
+
+        bus.dispatch();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), received,
+                "События из переполнения потерялись или доставлены не по порядку");
+    }
+}
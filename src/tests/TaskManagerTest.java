@@ -152,9 +152,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         ArrayList<Task> expectedTasks = new ArrayList<>();
 
         expectedTasks.add(normalTask1);
+        expectedTasks.add(epic);
         expectedTasks.add(subtask1);
         expectedTasks.add(subtask2);
-        expectedTasks.add(epic);
 
         assertEquals(expectedTasks, taskManager.getPrioritizedTasks());
     }
@@ -0,0 +1,184 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int, хранящее элементы в порядке добавления в растущем массиве.
+ * Позиции элементов проиндексированы хеш-таблицей с открытой адресацией, поэтому проверка и удаление занимают O(1).
+ * Удалённые позиции помечаются дырами и схлопываются, когда дыр становится больше половины массива.
+ */
+public class IntArraySet {
+    private static final int HOLE = Integer.MIN_VALUE;
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] elements = new int[MIN_CAPACITY];
+    private int[] positions = new int[MIN_CAPACITY * 2];
+    private int length;
+    private int size;
+
+    public boolean add(int value) {
+        if (value == HOLE) {
+            throw new IllegalArgumentException("Значение " + value + " зарезервировано");
+        }
+
+        int slot = find(value);
+
+        if (positions[slot] != 0) {
+            return false;
+        }
+
+        if (length == elements.length) {
+            if (size * 2 <= length) {
+                compact();
+            } else {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+        }
+
+        if ((size + 1) * 2 > positions.length) {
+            rebuildPositions(positions.length * 2);
+        }
+
+        elements[length++] = value;
+        positions[find(value)] = length;
+        size++;
+
+        return true;
+    }
+
+    public boolean remove(int value) {
+        final int slot = find(value);
+
+        if (positions[slot] == 0) {
+            return false;
+        }
+
+        elements[positions[slot] - 1] = HOLE;
+        deleteSlot(slot);
+        size--;
+
+        while (length > 0 && elements[length - 1] == HOLE) {
+            length--;
+        }
+        if (length > MIN_CAPACITY && size * 2 < length) {
+            compact();
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return value != HOLE && positions[find(value)] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        elements = new int[MIN_CAPACITY];
+        positions = new int[MIN_CAPACITY * 2];
+        length = 0;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != HOLE) {
+                action.accept(elements[i]);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int j = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != HOLE) {
+                result[j++] = elements[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != HOLE) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(elements[i]);
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    private int find(int value) {
+        final int mask = positions.length - 1;
+        int slot = mix(value) & mask;
+
+        while (positions[slot] != 0 && elements[positions[slot] - 1] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int slot) {
+        final int mask = positions.length - 1;
+        int hole = slot;
+        int i = slot;
+
+        while (true) {
+            i = (i + 1) & mask;
+
+            if (positions[i] == 0) {
+                break;
+            }
+
+            final int home = mix(elements[positions[i] - 1]) & mask;
+            final boolean staysInPlace = hole < i ? (home > hole && home <= i) : (home > hole || home <= i);
+
+            if (!staysInPlace) {
+                positions[hole] = positions[i];
+                hole = i;
+            }
+        }
+        positions[hole] = 0;
+    }
+
+    private void compact() {
+        int j = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != HOLE) {
+                elements[j++] = elements[i];
+            }
+        }
+        Arrays.fill(elements, j, length, 0);
+        length = j;
+        rebuildPositions(positions.length);
+    }
+
+    private void rebuildPositions(int capacity) {
+        positions = new int[capacity];
+
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != HOLE) {
+                positions[find(elements[i])] = i + 1;
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        final int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
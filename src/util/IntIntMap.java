@@ -0,0 +1,140 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица int -> int с открытой адресацией: ни ключи, ни значения не упаковываются в объекты.
+ * Значения неотрицательные, отсутствие ключа обозначается {@link #MISSING}.
+ * Удаление сдвигает следующие записи цепочки назад вместо меток удалённых ячеек,
+ * поэтому поиск не деградирует при постоянных добавлениях и удалениях. Таблица не потокобезопасна.
+ */
+public class IntIntMap {
+    public static final int MISSING = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys = new int[MIN_CAPACITY];
+    // Значение + 1, ноль - пустая ячейка
+    private int[] values = new int[MIN_CAPACITY];
+    private int size;
+
+    public int get(int key) {
+        return values[find(key)] - 1;
+    }
+
+    public boolean containsKey(int key) {
+        return values[find(key)] != 0;
+    }
+
+    /**
+     * Возвращает прежнее значение или {@link #MISSING}.
+     */
+    public int put(int key, int value) {
+        if (value < 0 || value == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Значение вне допустимого диапазона: " + value);
+        }
+
+        int slot = find(key);
+
+        if (values[slot] != 0) {
+            final int previous = values[slot] - 1;
+
+            values[slot] = value + 1;
+            return previous;
+        }
+
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+            slot = find(key);
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+        size++;
+        return MISSING;
+    }
+
+    /**
+     * Возвращает удалённое значение или {@link #MISSING}.
+     */
+    public int remove(int key) {
+        final int slot = find(key);
+
+        if (values[slot] == 0) {
+            return MISSING;
+        }
+
+        final int previous = values[slot] - 1;
+
+        deleteSlot(slot);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int find(int key) {
+        final int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int slot) {
+        final int mask = keys.length - 1;
+        int hole = slot;
+        int i = slot;
+
+        while (true) {
+            i = (i + 1) & mask;
+
+            if (values[i] == 0) {
+                break;
+            }
+
+            final int home = mix(keys[i]) & mask;
+            final boolean staysInPlace = hole < i ? (home > hole && home <= i) : (home > hole || home <= i);
+
+            if (!staysInPlace) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        keys = new int[capacity];
+        values = new int[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                final int slot = find(oldKeys[i]);
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,244 @@
+package util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Хеш-таблица с открытой адресацией и примитивными ключами int.
+ * Не упаковывает ключи и не создаёт узел на каждую запись: ключи и значения лежат в двух параллельных массивах.
+ * Чтение не берёт блокировку, запись синхронизирована на самой таблице.
+ * Удалённые ячейки помечаются и переиспользуются только при перестройке таблицы,
+ * поэтому читатель никогда не увидит значение рядом с чужим ключом.
+ */
+public class IntObjectMap<V> {
+    private static final Object REMOVED = new Object();
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+    private int usedSlots;
+
+    public V get(int key) {
+        final Table current = table;
+        final int mask = current.keys.length - 1;
+
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            final Object value = VALUES.getAcquire(current.values, i);
+
+            if (value == null) {
+                return null;
+            }
+            if (value != REMOVED && current.keys[i] == key) {
+                return cast(value);
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public synchronized V put(int key, V value) {
+        Objects.requireNonNull(value);
+
+        final Table current = table;
+        final int mask = current.keys.length - 1;
+        int i = mix(key) & mask;
+
+        for (Object existing = current.values[i]; existing != null; existing = current.values[i]) {
+            if (existing != REMOVED && current.keys[i] == key) {
+                VALUES.setRelease(current.values, i, value);
+                return cast(existing);
+            }
+            i = (i + 1) & mask;
+        }
+
+        current.keys[i] = key;
+        VALUES.setRelease(current.values, i, value);
+        size++;
+        usedSlots++;
+
+        if (usedSlots * 4 >= current.keys.length * 3) {
+            rehash();
+        }
+        return null;
+    }
+
+    public synchronized void putAll(IntObjectMap<? extends V> other) {
+        other.forEach(this::put);
+    }
+
+    public synchronized V remove(int key) {
+        final Table current = table;
+        final int mask = current.keys.length - 1;
+
+        for (int i = mix(key) & mask; current.values[i] != null; i = (i + 1) & mask) {
+            final Object existing = current.values[i];
+
+            if (existing != REMOVED && current.keys[i] == key) {
+                VALUES.setRelease(current.values, i, REMOVED);
+                size--;
+                return cast(existing);
+            }
+        }
+        return null;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+        usedSlots = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Число ячеек таблицы: на каждую приходится один int и одна ссылка.
+     */
+    public int capacity() {
+        return table.keys.length;
+    }
+
+    public void forEach(EntryConsumer<? super V> action) {
+        final Table current = table;
+
+        for (int i = 0; i < current.values.length; i++) {
+            final Object value = VALUES.getAcquire(current.values, i);
+
+            if (value != null && value != REMOVED) {
+                action.accept(current.keys[i], cast(value));
+            }
+        }
+    }
+
+    public void forEachKey(IntConsumer action) {
+        forEach((key, value) -> action.accept(key));
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        forEach((key, value) -> action.accept(value));
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(table);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void rehash() {
+        final Table current = table;
+        int capacity = MIN_CAPACITY;
+
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+
+        final Table rehashed = new Table(capacity);
+        final int mask = capacity - 1;
+
+        for (int i = 0; i < current.values.length; i++) {
+            final Object value = current.values[i];
+
+            if (value != null && value != REMOVED) {
+                int j = mix(current.keys[i]) & mask;
+
+                while (rehashed.values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                rehashed.keys[j] = current.keys[i];
+                rehashed.values[j] = value;
+            }
+        }
+        usedSlots = size;
+        table = rehashed;
+    }
+
+    /**
+     * Перемешивает биты ключа: подряд идущие id иначе ложатся в соседние ячейки, и вместе с метками удалённых
+     * записей образуют одну длинную цепочку, которую приходится просматривать целиком.
+     */
+    private static int mix(int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private static final class Table {
+        final int[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final Table snapshot;
+        private int index = -1;
+        private Object next;
+
+        ValueIterator(Table snapshot) {
+            this.snapshot = snapshot;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final V value = cast(next);
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            next = null;
+
+            while (++index < snapshot.values.length) {
+                final Object value = VALUES.getAcquire(snapshot.values, index);
+
+                if (value != null && value != REMOVED) {
+                    next = value;
+                    return;
+                }
+            }
+        }
+    }
+}
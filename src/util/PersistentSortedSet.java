@@ -0,0 +1,367 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемое отсортированное множество на АВЛ-дереве.
+ * Добавление и удаление возвращают новое множество и копируют только путь от корня до изменённого узла,
+ * остальные узлы делятся между версиями. Поэтому любую версию можно отдавать читателям без копирования.
+ * Каждый узел хранит размер поддерева, так что доступ по индексу занимает O(log n).
+ */
+public final class PersistentSortedSet<E> implements Iterable<E> {
+    private final Comparator<? super E> comparator;
+    private final Node<E> root;
+
+    private PersistentSortedSet(Comparator<? super E> comparator, Node<E> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(comparator, null);
+    }
+
+    /**
+     * Множество из элементов с попарно различными по компаратору значениями.
+     * Дерево строится сразу сбалансированным за O(n log n) на сортировку и O(n) на узлы, без перестроек по пути.
+     */
+    public static <E> PersistentSortedSet<E> of(Comparator<? super E> comparator, Collection<? extends E> elements) {
+        @SuppressWarnings("unchecked")
+        final E[] sorted = (E[]) elements.toArray();
+
+        Arrays.sort(sorted, comparator);
+        return new PersistentSortedSet<>(comparator, build(sorted, 0, sorted.length));
+    }
+
+    /**
+     * Возвращает множество с элементом. Элемент, равный по компаратору, заменяется.
+     */
+    public PersistentSortedSet<E> add(E element) {
+        return new PersistentSortedSet<>(comparator, insert(root, element));
+    }
+
+    public PersistentSortedSet<E> remove(E element) {
+        final Node<E> removed = delete(root, element);
+        return removed == root ? this : new PersistentSortedSet<>(comparator, removed);
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    public boolean contains(E element) {
+        Node<E> node = root;
+
+        while (node != null) {
+            final int compare = comparator.compare(element, node.value);
+
+            if (compare == 0) {
+                return true;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне множества размера " + size());
+        }
+
+        Node<E> node = root;
+
+        while (true) {
+            final int leftSize = size(node.left);
+
+            if (index == leftSize) {
+                return node.value;
+            }
+            if (index < leftSize) {
+                node = node.left;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new NodeIterator<>(root);
+    }
+
+    /**
+     * Обходит элементы строго после ключа, не просматривая предшествующие.
+     * Функция сравнивает ключ с элементом так же, как компаратор множества: {@code compare(key, element)}.
+     * Ключ не обязан присутствовать в множестве.
+     */
+    public Iterator<E> iteratorAfter(ToIntFunction<? super E> keyComparison) {
+        final NodeIterator<E> iterator = new NodeIterator<>(null);
+
+        for (Node<E> node = root; node != null; ) {
+            if (keyComparison.applyAsInt(node.value) < 0) {
+                iterator.path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return iterator;
+    }
+
+    /**
+     * Количество элементов строго перед ключом, за O(log n).
+     * Функция сравнивает ключ с элементом так же, как в {@link #iteratorAfter}.
+     */
+    public int rank(ToIntFunction<? super E> keyComparison) {
+        int rank = 0;
+
+        for (Node<E> node = root; node != null; ) {
+            if (keyComparison.applyAsInt(node.value) > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Неизменяемый список поверх этой версии множества. Создаётся за O(1) и не копирует элементы.
+     */
+    public List<E> asList() {
+        return new ListView<>(this, 0, size());
+    }
+
+    /**
+     * Неизменяемый список элементов с позициями [from, to). Создаётся за O(log n),
+     * обход начинается сразу с первого элемента диапазона.
+     */
+    public List<E> slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Диапазон [" + from + ", " + to + ") вне множества размера " + size());
+        }
+        return new ListView<>(this, from, to);
+    }
+
+    private Iterator<E> iteratorFrom(int index) {
+        final NodeIterator<E> iterator = new NodeIterator<>(null);
+
+        for (Node<E> node = root; node != null; ) {
+            final int leftSize = size(node.left);
+
+            if (index <= leftSize) {
+                iterator.path.push(node);
+                node = node.left;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return iterator;
+    }
+
+    private static <E> Node<E> build(E[] sorted, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+
+        final int middle = (from + to) >>> 1;
+
+        return new Node<>(sorted[middle], build(sorted, from, middle), build(sorted, middle + 1, to));
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+
+        final int compare = comparator.compare(element, node.value);
+
+        if (compare == 0) {
+            return new Node<>(element, node.left, node.right);
+        }
+        if (compare < 0) {
+            return balance(node.value, insert(node.left, element), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, element));
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+
+        final int compare = comparator.compare(element, node.value);
+
+        if (compare < 0) {
+            final Node<E> left = delete(node.left, element);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (compare > 0) {
+            final Node<E> right = delete(node.right, element);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+
+        Node<E> successor = node.right;
+
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.value, node.left, deleteFirst(node.right));
+    }
+
+    private static <E> Node<E> deleteFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.value, deleteFirst(node.left), node.right);
+    }
+
+    private static <E> Node<E> balance(E value, Node<E> left, Node<E> right) {
+        final int difference = height(left) - height(right);
+
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            return new Node<>(left.right.value,
+                    new Node<>(left.value, left.left, left.right.left),
+                    new Node<>(value, left.right.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            return new Node<>(right.left.value,
+                    new Node<>(value, left, right.left.left),
+                    new Node<>(right.value, right.left.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<E> {
+        final E value;
+        final Node<E> left;
+        final Node<E> right;
+        final int height;
+        final int size;
+
+        Node(E value, Node<E> left, Node<E> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static final class NodeIterator<E> implements Iterator<E> {
+        private final Deque<Node<E>> path = new ArrayDeque<>();
+
+        NodeIterator(Node<E> root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            final Node<E> node = path.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+
+        private void pushLeft(Node<E> node) {
+            for (; node != null; node = node.left) {
+                path.push(node);
+            }
+        }
+    }
+
+    private static final class ListView<E> extends AbstractList<E> {
+        private final PersistentSortedSet<E> set;
+        private final int from;
+        private final int to;
+
+        ListView(PersistentSortedSet<E> set, int from, int to) {
+            this.set = set;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size());
+            }
+            return set.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            final Iterator<E> iterator = set.iteratorFrom(from);
+
+            return new Iterator<>() {
+                private int remaining = size();
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public E next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    remaining--;
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package util;
+
+import java.util.Comparator;
+
+/**
+ * {@link IntObjectMap}, который вместе с таблицей ведёт неизменяемую версию своих значений.
+ * Компаратор должен упорядочивать значения по их ключу, тогда версия содержит ровно значения таблицы.
+ * Запись копирует в версии только путь к изменённому узлу за O(log n), а чтение версии занимает O(1).
+ * Версию можно отдавать читателям целиком: следующая запись создаст новую, не трогая уже выданную.
+ */
+public class SnapshotIntObjectMap<V> extends IntObjectMap<V> {
+    private volatile PersistentSortedSet<V> snapshot;
+
+    public SnapshotIntObjectMap(Comparator<? super V> byKey) {
+        snapshot = PersistentSortedSet.empty(byKey);
+    }
+
+    @Override
+    public synchronized V put(int key, V value) {
+        final V previous = super.put(key, value);
+        // Значение с тем же ключом компаратор считает равным, и add заменяет его
+        snapshot = snapshot.add(value);
+        return previous;
+    }
+
+    @Override
+    public synchronized V remove(int key) {
+        final V removed = super.remove(key);
+
+        if (removed != null) {
+            snapshot = snapshot.remove(removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        snapshot = PersistentSortedSet.empty(snapshot.comparator());
+    }
+
+    public PersistentSortedSet<V> snapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,65 @@
+package util;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Изменяемое отсортированное множество, которое после каждой записи публикует неизменяемую версию.
+ * Запись синхронизирована и стоит O(log n), чтение не берёт блокировку и всегда видит целостную версию.
+ */
+public class SnapshotSortedSet<E> {
+    private volatile PersistentSortedSet<E> snapshot;
+
+    public SnapshotSortedSet(Comparator<? super E> comparator) {
+        snapshot = PersistentSortedSet.empty(comparator);
+    }
+
+    public synchronized boolean add(E element) {
+        final boolean added = !snapshot.contains(element);
+        snapshot = snapshot.add(element);
+        return added;
+    }
+
+    public synchronized void addAll(Collection<? extends E> elements) {
+        PersistentSortedSet<E> current = snapshot;
+
+        for (E element : elements) {
+            current = current.add(element);
+        }
+        snapshot = current;
+    }
+
+    public synchronized boolean remove(E element) {
+        final PersistentSortedSet<E> current = snapshot;
+        snapshot = current.remove(element);
+        return snapshot != current;
+    }
+
+    public synchronized void removeIf(Predicate<? super E> filter) {
+        PersistentSortedSet<E> current = snapshot;
+
+        for (E element : snapshot) {
+            if (filter.test(element)) {
+                current = current.remove(element);
+            }
+        }
+        snapshot = current;
+    }
+
+    public synchronized void clear() {
+        snapshot = PersistentSortedSet.empty(snapshot.comparator());
+    }
+
+    public boolean contains(E element) {
+        return snapshot.contains(element);
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    public PersistentSortedSet<E> snapshot() {
+        return snapshot;
+    }
+}